@@ -23,32 +23,33 @@ const ProcessInstances: React.FC = () => {
       setError(null);
       const data = await camundaApi.getProcessInstances();
       
-      // Load status for each instance to get current step
-      const instancesWithStatus = await Promise.all(
-        data.map(async (instance) => {
-          try {
-            const status = await camundaApi.getProcessStatus(instance.id);
-            const currentStep = status.activeActivities.length > 0
-              ? status.activeActivities[0].activityName
-              : (status.completedActivities.length > 0
-                  ? status.completedActivities[status.completedActivities.length - 1].activityName
-                  : 'Not Started');
-            
-            return {
-              ...instance,
-              currentStep,
-              isCompleted: status.isEnded
-            };
-          } catch (err) {
-            console.error(`Failed to load status for ${instance.id}:`, err);
-            return {
-              ...instance,
-              currentStep: 'Unknown',
-              isCompleted: false
-            };
-          }
-        })
-      );
+      // Load the status of all instances in one request to get each current step
+      let statuses: Record<string, ProcessStatus> = {};
+      try {
+        statuses = await camundaApi.getProcessStatuses(data.map((instance) => instance.id));
+      } catch (err) {
+        console.error('Failed to load process statuses:', err);
+      }
+      const instancesWithStatus = data.map((instance) => {
+        const status = statuses[instance.id];
+        if (!status) {
+          return {
+            ...instance,
+            currentStep: 'Unknown',
+            isCompleted: false
+          };
+        }
+        const currentStep = status.activeActivities.length > 0
+          ? status.activeActivities[0].activityName
+          : (status.completedActivities.length > 0
+              ? status.completedActivities[status.completedActivities.length - 1].activityName
+              : 'Not Started');
+        return {
+          ...instance,
+          currentStep,
+          isCompleted: status.isEnded
+        };
+      });
       
       setInstances(instancesWithStatus);
     } catch (err: any) {
@@ -48,24 +48,14 @@ const TaskList: React.FC = () => {
       );
       setTasks(data);
       
-      // Load process status for each task
-      const statusPromises = data.map(async (task) => {
-        try {
-          const status = await camundaApi.getProcessStatus(task.processInstanceId);
-          return { processInstanceId: task.processInstanceId, status };
-        } catch (err) {
-          console.error(`Failed to load status for ${task.processInstanceId}:`, err);
-          return { processInstanceId: task.processInstanceId, status: null };
-        }
-      });
-      
-      const statusResults = await Promise.all(statusPromises);
-      const statusMap: Record<string, ProcessStatus> = {};
-      statusResults.forEach(({ processInstanceId, status }) => {
-        if (status) {
-          statusMap[processInstanceId] = status;
-        }
-      });
+      // Load process status for all tasks in one request
+      const processInstanceIds = Array.from(new Set(data.map((task) => task.processInstanceId)));
+      let statusMap: Record<string, ProcessStatus> = {};
+      try {
+        statusMap = await camundaApi.getProcessStatuses(processInstanceIds);
+      } catch (err) {
+        console.error('Failed to load process statuses:', err);
+      }
       setProcessStatuses(statusMap);
     } catch (err: any) {
       setError(err.message || 'Failed to load tasks');
@@ -104,6 +104,17 @@ export const camundaApi = {
     return response.data;
   },
 
+  // Statuses for many instances, keyed by process instance id; one request per 500 ids (the server's limit)
+  getProcessStatuses: async (processInstanceIds: string[]): Promise<Record<string, ProcessStatus>> => {
+    const statuses: Record<string, ProcessStatus> = {};
+    for (let i = 0; i < processInstanceIds.length; i += 500) {
+      const chunk = processInstanceIds.slice(i, i + 500);
+      const response = await api.post<Record<string, ProcessStatus>>('/process-instances/status', chunk);
+      Object.assign(statuses, response.data);
+    }
+    return statuses;
+  },
+
   // Identity operations
   getAllUsers: async (): Promise<UserDTO[]> => {
     const response = await api.get<UserDTO[]>('/identity/users');
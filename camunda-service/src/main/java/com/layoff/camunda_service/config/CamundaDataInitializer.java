@@ -1,5 +1,6 @@
 package com.layoff.camunda_service.config;
 
+import com.layoff.camunda_service.services.CamundaIdentityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -20,9 +21,11 @@ public class CamundaDataInitializer implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(CamundaDataInitializer.class);
     
     private final JdbcTemplate jdbcTemplate;
+    private final CamundaIdentityService identityService;
     
-    public CamundaDataInitializer(JdbcTemplate jdbcTemplate) {
+    public CamundaDataInitializer(JdbcTemplate jdbcTemplate, CamundaIdentityService identityService) {
         this.jdbcTemplate = jdbcTemplate;
+        this.identityService = identityService;
     }
     
     @Override
@@ -70,6 +73,9 @@ public class CamundaDataInitializer implements CommandLineRunner {
         } catch (Exception e) {
             logger.error("Error initializing Camunda users and groups", e);
             // Don't fail startup if initialization fails
+        } finally {
+            // identity listings are cached; make them pick up what was just inserted
+            identityService.invalidate();
         }
     }
     
@@ -0,0 +1,92 @@
+package com.layoff.camunda_service.config;
+
+import com.layoff.camunda_service.delegates.ExternalTaskHandler;
+import com.layoff.camunda_service.services.ExternalTaskSignal;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.camunda.bpm.engine.impl.bpmn.behavior.ExternalTaskActivityBehavior;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParse;
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParseListener;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.core.variable.mapping.value.ConstantValueProvider;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Switches service tasks to external tasks when
+ * {@code camunda.external-tasks.enabled} is set.
+ *
+ * A service task whose {@code camunda:delegateExpression} names an
+ * {@link ExternalTaskHandler} bean gets an external-task behavior on the handler's
+ * topic at parse time, so the BPMN keeps one definition for both modes. The mode
+ * applies when definitions are parsed into the engine's cache, so all engine nodes
+ * sharing a database should use the same setting.
+ */
+@Component
+public class ExternalTaskModePlugin extends AbstractProcessEnginePlugin {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalTaskModePlugin.class);
+
+    private final Map<String, ExternalTaskHandler> handlers;
+    private final ExternalTaskSignal signal;
+    private final boolean enabled;
+
+    public ExternalTaskModePlugin(Map<String, ExternalTaskHandler> handlers,
+                                  ExternalTaskSignal signal,
+                                  @Value("${camunda.external-tasks.enabled:false}") boolean enabled) {
+        this.handlers = handlers;
+        this.signal = signal;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl configuration) {
+        if (!enabled) {
+            return;
+        }
+        List<BpmnParseListener> listeners = configuration.getCustomPostBPMNParseListeners();
+        if (listeners == null) {
+            listeners = new ArrayList<>();
+            configuration.setCustomPostBPMNParseListeners(listeners);
+        }
+        listeners.add(new AbstractBpmnParseListener() {
+            @Override
+            public void parseServiceTask(Element serviceTaskElement, ScopeImpl scope, ActivityImpl activity) {
+                String expression = serviceTaskElement.attributeNS(BpmnParse.CAMUNDA_BPMN_EXTENSIONS_NS, "delegateExpression");
+                ExternalTaskHandler handler = handlerFor(expression);
+                if (handler != null) {
+                    useExternalTask(activity, handler.topic());
+                }
+            }
+        });
+        logger.info("External-task mode enabled for topics {}",
+                handlers.values().stream().map(ExternalTaskHandler::topic).toList());
+    }
+
+    private ExternalTaskHandler handlerFor(String delegateExpression) {
+        if (delegateExpression == null || !delegateExpression.startsWith("${") || !delegateExpression.endsWith("}")) {
+            return null;
+        }
+        return handlers.get(delegateExpression.substring(2, delegateExpression.length() - 1).trim());
+    }
+
+    private void useExternalTask(ActivityImpl activity, String topic) {
+        activity.setActivityBehavior(new ExternalTaskActivityBehavior(new ConstantValueProvider(topic), null));
+        // lets idle workers in this JVM fetch as soon as the task is committed
+        activity.addBuiltInListener(ExecutionListener.EVENTNAME_START, execution ->
+                Context.getCommandContext().getTransactionContext()
+                        .addTransactionListener(TransactionState.COMMITTED, commandContext -> signal.signal(topic)));
+    }
+}
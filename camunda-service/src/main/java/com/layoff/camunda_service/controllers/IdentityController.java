@@ -21,18 +21,33 @@ public class IdentityController {
     
     private static final Logger logger = LoggerFactory.getLogger(IdentityController.class);
     
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final CamundaIdentityService identityService;
     
     /**
-     * Get all users
-     * GET /api/camunda/identity/users
+     * Get all users, or one page of them when page/size are given
+     * GET /api/camunda/identity/users?page=0&size=50
+     * Paged responses carry the total in the X-Total-Count header.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
+    public ResponseEntity<List<UserDTO>> getAllUsers(@RequestParam(required = false) Integer page,
+                                                     @RequestParam(required = false) Integer size) {
         logger.info("=== GET ALL USERS REQUEST ===");
-        List<UserDTO> users = identityService.getAllUsers();
-        logger.info("Returning {} users", users.size());
-        return ResponseEntity.ok(users);
+        if (page == null && size == null) {
+            List<UserDTO> users = identityService.getAllUsers();
+            logger.info("Returning {} users", users.size());
+            return ResponseEntity.ok(users);
+        }
+        if (!validPage(page, size)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<UserDTO> users = identityService.getUsers(pageOrZero(page), size);
+        logger.info("Returning {} users (page {})", users.size(), pageOrZero(page));
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(identityService.countUsers()))
+                .body(users);
     }
     
     /**
@@ -54,15 +69,26 @@ public class IdentityController {
     }
     
     /**
-     * Get all groups
-     * GET /api/camunda/identity/groups
+     * Get all groups, or one page of them when page/size are given
+     * GET /api/camunda/identity/groups?page=0&size=50
      */
     @GetMapping("/groups")
-    public ResponseEntity<List<GroupDTO>> getAllGroups() {
+    public ResponseEntity<List<GroupDTO>> getAllGroups(@RequestParam(required = false) Integer page,
+                                                       @RequestParam(required = false) Integer size) {
         logger.info("=== GET ALL GROUPS REQUEST ===");
-        List<GroupDTO> groups = identityService.getAllGroups();
-        logger.info("Returning {} groups", groups.size());
-        return ResponseEntity.ok(groups);
+        if (page == null && size == null) {
+            List<GroupDTO> groups = identityService.getAllGroups();
+            logger.info("Returning {} groups", groups.size());
+            return ResponseEntity.ok(groups);
+        }
+        if (!validPage(page, size)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<GroupDTO> groups = identityService.getGroups(pageOrZero(page), size);
+        logger.info("Returning {} groups (page {})", groups.size(), pageOrZero(page));
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(identityService.countGroups()))
+                .body(groups);
     }
     
     /**
@@ -106,7 +132,12 @@ public class IdentityController {
         logger.info("Returning {} groups for user {}", groups.size(), userId);
         return ResponseEntity.ok(groups);
     }
-}
-
 
+    private static boolean validPage(Integer page, Integer size) {
+        return size != null && size > 0 && size <= MAX_PAGE_SIZE && (page == null || page >= 0);
+    }
 
+    private static int pageOrZero(Integer page) {
+        return page == null ? 0 : page;
+    }
+}
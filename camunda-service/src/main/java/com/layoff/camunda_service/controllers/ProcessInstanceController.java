@@ -1,19 +1,29 @@
 package com.layoff.camunda_service.controllers;
 
+import com.layoff.camunda_service.services.VariableBatchLoader;
 import lombok.RequiredArgsConstructor;
 import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.ManagementService;
 import org.camunda.bpm.engine.RuntimeService;
 import org.camunda.bpm.engine.history.HistoricActivityInstance;
+import org.camunda.bpm.engine.history.NativeHistoricActivityInstanceQuery;
 import org.camunda.bpm.engine.runtime.ActivityInstance;
 import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.runtime.ProcessInstanceQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -23,52 +33,101 @@ public class ProcessInstanceController {
     
     private static final Logger logger = LoggerFactory.getLogger(ProcessInstanceController.class);
     
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final int MAX_PAGE_SIZE = 500;
+    
     private final RuntimeService runtimeService;
     private final HistoryService historyService;
+    private final ManagementService managementService;
+    private final VariableBatchLoader variableLoader;
     
+    /**
+     * Lists active process instances, optionally one page at a time.
+     * GET /api/camunda/process-instances?processDefinitionKey=order_process&page=0&size=50&variables=orderId,status
+     *
+     * variables limits which process variables are returned; all are returned when omitted.
+     * Variables for the whole page are fetched in one query. Paged responses carry
+     * the total in the X-Total-Count header.
+     */
     @GetMapping
     public ResponseEntity<List<Map<String, Object>>> getProcessInstances(
-            @RequestParam(required = false) String processDefinitionKey) {
+            @RequestParam(required = false) String processDefinitionKey,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) List<String> variables) {
         
         logger.info("=== PROCESS INSTANCE QUERY REQUEST ===");
-        logger.info("Query parameter - processDefinitionKey: {}", processDefinitionKey);
-        
-        List<ProcessInstance> instances;
+        logger.info("Query parameters - processDefinitionKey: {}, page: {}, size: {}", processDefinitionKey, page, size);
         
+        ProcessInstanceQuery query = runtimeService.createProcessInstanceQuery().active();
         if (processDefinitionKey != null) {
             logger.info("Querying process instances by processDefinitionKey: {}", processDefinitionKey);
-            instances = runtimeService.createProcessInstanceQuery()
-                    .processDefinitionKey(processDefinitionKey)
-                    .active()
-                    .list();
+            query.processDefinitionKey(processDefinitionKey);
         } else {
             logger.info("Querying all active process instances");
-            instances = runtimeService.createProcessInstanceQuery()
-                    .active()
-                    .list();
+        }
+        query.orderByProcessInstanceId().asc();
+        
+        boolean paged = page != null || size != null;
+        List<ProcessInstance> instances;
+        if (paged) {
+            if (size == null || size <= 0 || size > MAX_PAGE_SIZE || (page != null && page < 0)) {
+                return ResponseEntity.badRequest().build();
+            }
+            long first = (long) (page == null ? 0 : page) * size;
+            if (first > Integer.MAX_VALUE) {
+                return ResponseEntity.badRequest().build();
+            }
+            instances = query.listPage((int) first, size);
+        } else {
+            instances = query.list();
         }
         
         logger.info("Found {} active process instance(s)", instances.size());
         for (ProcessInstance instance : instances) {
-            logger.info("ProcessInstance - Id: {}, ProcessDefinitionId: {}, BusinessKey: {}", 
+            logger.debug("ProcessInstance - Id: {}, ProcessDefinitionId: {}, BusinessKey: {}", 
                     instance.getId(), instance.getProcessDefinitionId(), instance.getBusinessKey());
         }
         
+        Map<String, Map<String, Object>> instanceVariables = variableLoader.forProcessInstances(
+                instances.stream().map(ProcessInstance::getId).toList(), variables);
         List<Map<String, Object>> result = instances.stream()
                 .map(instance -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("id", instance.getId());
                     map.put("processDefinitionId", instance.getProcessDefinitionId());
                     map.put("businessKey", instance.getBusinessKey());
-                    map.put("variables", runtimeService.getVariables(instance.getId()));
+                    map.put("variables", instanceVariables.get(instance.getId()));
                     return map;
                 })
                 .collect(Collectors.toList());
         
         logger.info("=== PROCESS INSTANCE QUERY COMPLETED ===");
+        if (paged) {
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(query.count()))
+                    .body(result);
+        }
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * Status summaries for many process instances in one call, keyed by instance ID.
+     * POST /api/camunda/process-instances/status with a JSON array of instance IDs
+     *
+     * Each summary has the same shape as GET /{processInstanceId}/status. Active
+     * activities come from the activity history, so the process-level scope itself is
+     * not listed. Uses two queries regardless of how many IDs are asked for.
+     */
+    @PostMapping("/status")
+    public ResponseEntity<Map<String, Map<String, Object>>> getProcessStatuses(@RequestBody List<String> processInstanceIds) {
+        Set<String> ids = new LinkedHashSet<>(processInstanceIds);
+        if (ids.size() > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(getProcessStatusesInternal(ids));
+    }
+    
     @GetMapping("/{processInstanceId}")
     public ResponseEntity<Map<String, Object>> getProcessInstance(@PathVariable String processInstanceId) {
         ProcessInstance instance = runtimeService.createProcessInstanceQuery()
@@ -147,6 +206,71 @@ public class ProcessInstanceController {
         return status;
     }
     
+    private Map<String, Map<String, Object>> getProcessStatusesInternal(Set<String> ids) {
+        Map<String, List<Map<String, Object>>> completed = new HashMap<>();
+        Map<String, List<Map<String, Object>>> active = new HashMap<>();
+        Set<String> running = new HashSet<>();
+        if (!ids.isEmpty()) {
+            // the typed history query has no "process instance id in", so one native query covers all IDs
+            StringBuilder sql = new StringBuilder("SELECT * FROM ")
+                    .append(managementService.getTableName(HistoricActivityInstance.class))
+                    .append(" WHERE PROC_INST_ID_ IN (");
+            NativeHistoricActivityInstanceQuery query = historyService.createNativeHistoricActivityInstanceQuery();
+            int index = 0;
+            for (String id : ids) {
+                sql.append(index == 0 ? "" : ", ").append("#{id").append(index).append('}');
+                query.parameter("id" + index, id);
+                index++;
+            }
+            sql.append(") ORDER BY START_TIME_ ASC, SEQUENCE_COUNTER_ ASC");
+            
+            List<HistoricActivityInstance> activities = new ArrayList<>(query.sql(sql.toString()).list());
+            for (HistoricActivityInstance activity : activities) {
+                if (activity.getEndTime() != null
+                        || activity.getActivityType() == null || activity.getActivityType().equals("subProcess")) {
+                    continue;
+                }
+                Map<String, Object> map = new HashMap<>();
+                map.put("activityId", activity.getActivityId());
+                map.put("activityName", activity.getActivityName());
+                map.put("activityType", activity.getActivityType());
+                active.computeIfAbsent(activity.getProcessInstanceId(), id -> new ArrayList<>()).add(map);
+            }
+            
+            activities.removeIf(activity -> activity.getEndTime() == null);
+            activities.sort(Comparator.comparing(HistoricActivityInstance::getEndTime));
+            for (HistoricActivityInstance activity : activities) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("activityId", activity.getActivityId());
+                map.put("activityName", activity.getActivityName());
+                map.put("activityType", activity.getActivityType());
+                map.put("startTime", activity.getStartTime());
+                map.put("endTime", activity.getEndTime());
+                map.put("duration", activity.getDurationInMillis());
+                completed.computeIfAbsent(activity.getProcessInstanceId(), id -> new ArrayList<>()).add(map);
+            }
+            
+            runtimeService.createProcessInstanceQuery()
+                    .processInstanceIds(ids)
+                    .list()
+                    .forEach(instance -> {
+                        if (!instance.isEnded()) {
+                            running.add(instance.getId());
+                        }
+                    });
+        }
+        
+        Map<String, Map<String, Object>> statuses = new LinkedHashMap<>();
+        for (String id : ids) {
+            Map<String, Object> status = new HashMap<>();
+            status.put("completedActivities", completed.getOrDefault(id, List.of()));
+            status.put("activeActivities", running.contains(id) ? active.getOrDefault(id, List.of()) : List.of());
+            status.put("isEnded", !running.contains(id));
+            statuses.put(id, status);
+        }
+        return statuses;
+    }
+    
     private void collectActiveActivities(ActivityInstance activityInstance, List<Map<String, Object>> active) {
         if (activityInstance.getActivityType() != null && 
             !activityInstance.getActivityType().equals("subProcess")) {
@@ -1,9 +1,11 @@
 package com.layoff.camunda_service.controllers;
 
 import com.layoff.camunda_service.dtos.TaskDTO;
+import com.layoff.camunda_service.services.VariableBatchLoader;
 import lombok.RequiredArgsConstructor;
 import org.camunda.bpm.engine.TaskService;
 import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.task.TaskQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -22,55 +24,88 @@ public class TaskController {
     
     private static final Logger logger = LoggerFactory.getLogger(TaskController.class);
     
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final int MAX_PAGE_SIZE = 500;
+    
     private final TaskService taskService;
+    private final VariableBatchLoader variableLoader;
     
+    /**
+     * Lists tasks, optionally one page at a time.
+     * GET /api/camunda/tasks?candidateGroup=finance_team&page=0&size=50&sort=due,asc&variables=orderId,totalAmount
+     *
+     * sort is "created" or "due", optionally followed by ",asc" or ",desc" (default created,desc).
+     * variables limits which process variables are returned; all are returned when omitted.
+     * Variables for the whole page are fetched in one query. Paged responses carry
+     * the total in the X-Total-Count header.
+     */
     @GetMapping
     public ResponseEntity<List<TaskDTO>> getTasks(
             @RequestParam(required = false) String assignee,
             @RequestParam(required = false) String candidateGroup,
-            @RequestParam(required = false) String processInstanceId) {
+            @RequestParam(required = false) String processInstanceId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) List<String> variables) {
         
         logger.info("=== TASK QUERY REQUEST ===");
-        logger.info("Query parameters - assignee: {}, candidateGroup: {}, processInstanceId: {}", 
-                assignee, candidateGroup, processInstanceId);
+        logger.info("Query parameters - assignee: {}, candidateGroup: {}, processInstanceId: {}, page: {}, size: {}, sort: {}", 
+                assignee, candidateGroup, processInstanceId, page, size, sort);
         
-        List<Task> tasks;
+        TaskQuery query = taskService.createTaskQuery();
         
         if (processInstanceId != null) {
             logger.info("Querying tasks by processInstanceId: {}", processInstanceId);
-            tasks = taskService.createTaskQuery()
-                    .processInstanceId(processInstanceId)
-                    .active()
-                    .list();
+            query.processInstanceId(processInstanceId).active();
         } else if (assignee != null) {
             logger.info("Querying tasks by assignee: {}", assignee);
-            tasks = taskService.createTaskQuery()
-                    .taskAssignee(assignee)
-                    .list();
+            query.taskAssignee(assignee);
         } else if (candidateGroup != null) {
             logger.info("Querying tasks by candidateGroup: {}", candidateGroup);
-            tasks = taskService.createTaskQuery()
-                    .taskCandidateGroup(candidateGroup)
-                    .list();
+            query.taskCandidateGroup(candidateGroup);
         } else {
             logger.info("Querying all active tasks");
-            tasks = taskService.createTaskQuery()
-                    .active()
-                    .list();
+            query.active();
+        }
+        
+        if (!applySort(query, sort)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        boolean paged = page != null || size != null;
+        List<Task> tasks;
+        if (paged) {
+            if (size == null || size <= 0 || size > MAX_PAGE_SIZE || (page != null && page < 0)) {
+                return ResponseEntity.badRequest().build();
+            }
+            long first = (long) (page == null ? 0 : page) * size;
+            if (first > Integer.MAX_VALUE) {
+                return ResponseEntity.badRequest().build();
+            }
+            tasks = query.listPage((int) first, size);
+        } else {
+            tasks = query.list();
         }
         
         logger.info("Found {} task(s)", tasks.size());
         for (Task task : tasks) {
-            logger.info("Task - Id: {}, Name: {}, Assignee: {}, ProcessInstanceId: {}, TaskDefinitionKey: {}", 
+            logger.debug("Task - Id: {}, Name: {}, Assignee: {}, ProcessInstanceId: {}, TaskDefinitionKey: {}", 
                     task.getId(), task.getName(), task.getAssignee(), 
                     task.getProcessInstanceId(), task.getTaskDefinitionKey());
         }
         
+        Map<String, Map<String, Object>> taskVariables = variableLoader.forTasks(tasks, variables);
         List<TaskDTO> taskDTOs = tasks.stream()
-                .map(this::mapToDTO)
+                .map(task -> mapToDTO(task, taskVariables.get(task.getId())))
                 .collect(Collectors.toList());
         
         logger.info("=== TASK QUERY COMPLETED ===");
+        if (paged) {
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(query.count()))
+                    .body(taskDTOs);
+        }
         return ResponseEntity.ok(taskDTOs);
     }
     
@@ -84,7 +119,7 @@ public class TaskController {
             return ResponseEntity.notFound().build();
         }
         
-        return ResponseEntity.ok(mapToDTO(task));
+        return ResponseEntity.ok(mapToDTO(task, taskService.getVariables(task.getId())));
     }
     
     @GetMapping("/{taskId}/variables")
@@ -122,9 +157,30 @@ public class TaskController {
         return ResponseEntity.ok().build();
     }
     
-    private TaskDTO mapToDTO(Task task) {
-        Map<String, Object> variables = taskService.getVariables(task.getId());
-        
+    /** Accepts "created" or "due", optionally followed by ",asc" or ",desc". */
+    private static boolean applySort(TaskQuery query, String sort) {
+        String[] parts = sort == null || sort.isBlank() ? new String[]{"created", "desc"} : sort.split(",");
+        switch (parts[0].trim()) {
+            case "created" -> query.orderByTaskCreateTime();
+            case "due" -> query.orderByDueDate();
+            default -> {
+                return false;
+            }
+        }
+        String direction = parts.length > 1 ? parts[1].trim() : "asc";
+        if (direction.equalsIgnoreCase("asc")) {
+            query.asc();
+        } else if (direction.equalsIgnoreCase("desc")) {
+            query.desc();
+        } else {
+            return false;
+        }
+        // stable order across pages for tasks created in the same instant
+        query.orderByTaskId().asc();
+        return true;
+    }
+    
+    private TaskDTO mapToDTO(Task task, Map<String, Object> variables) {
         LocalDateTime created = task.getCreateTime() != null
                 ? LocalDateTime.ofInstant(task.getCreateTime().toInstant(), ZoneId.systemDefault())
                 : null;
@@ -0,0 +1,22 @@
+package com.layoff.camunda_service.delegates;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A service task step that can also run as a Camunda external task.
+ *
+ * Implementations are the JavaDelegates referenced from the BPMN. In external-task
+ * mode the engine publishes the step on {@link #topic()} instead of calling the
+ * delegate, and a worker fetches the task with {@link #variableNames()}, calls
+ * {@link #handle(Map)} and completes it with the returned variables.
+ */
+public interface ExternalTaskHandler {
+
+    String topic();
+
+    List<String> variableNames();
+
+    /** Runs the step and returns the variables to set on the process instance. */
+    Map<String, Object> handle(Map<String, Object> variables) throws Exception;
+}
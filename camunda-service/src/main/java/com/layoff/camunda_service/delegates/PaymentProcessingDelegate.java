@@ -7,34 +7,52 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 @Component("paymentProcessingDelegate")
-public class PaymentProcessingDelegate implements JavaDelegate {
+public class PaymentProcessingDelegate implements JavaDelegate, ExternalTaskHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(PaymentProcessingDelegate.class);
     
+    public static final String TOPIC = "order-payment";
+    
     @Override
     public void execute(DelegateExecution execution) throws Exception {
-        Long orderId = getOrderIdAsLong(execution);
-        BigDecimal totalAmount = getTotalAmountAsBigDecimal(execution);
+        execution.setVariables(handle(execution.getVariables()));
+    }
+    
+    @Override
+    public String topic() {
+        return TOPIC;
+    }
+    
+    @Override
+    public List<String> variableNames() {
+        return List.of("orderId", "totalAmount");
+    }
+    
+    @Override
+    public Map<String, Object> handle(Map<String, Object> variables) {
+        Long orderId = getOrderIdAsLong(variables);
+        BigDecimal totalAmount = getTotalAmountAsBigDecimal(variables);
         
         logger.info("Processing payment for order: {} with amount: {}", orderId, totalAmount);
         
         // Simulate payment processing
         // In a real scenario, this would integrate with a payment gateway
         String paymentId = "PAY-" + System.currentTimeMillis();
-        execution.setVariable("paymentId", paymentId);
-        execution.setVariable("paymentProcessed", true);
         
         logger.info("Payment processed successfully. Payment ID: {}", paymentId);
+        return Map.of("paymentId", paymentId, "paymentProcessed", true);
     }
     
     /**
      * Safely extracts orderId as Long from process variables.
      * Handles both Integer and Long types that Camunda might store.
      */
-    private Long getOrderIdAsLong(DelegateExecution execution) {
-        Object orderIdObj = execution.getVariable("orderId");
+    private Long getOrderIdAsLong(Map<String, Object> variables) {
+        Object orderIdObj = variables.get("orderId");
         if (orderIdObj == null) {
             throw new IllegalStateException("orderId variable is null");
         }
@@ -53,8 +71,8 @@ public class PaymentProcessingDelegate implements JavaDelegate {
      * Safely extracts totalAmount as BigDecimal from process variables.
      * Handles Double, Float, BigDecimal, String, Integer, and Long types that Camunda might store.
      */
-    private BigDecimal getTotalAmountAsBigDecimal(DelegateExecution execution) {
-        Object totalAmountObj = execution.getVariable("totalAmount");
+    private BigDecimal getTotalAmountAsBigDecimal(Map<String, Object> variables) {
+        Object totalAmountObj = variables.get("totalAmount");
         if (totalAmountObj == null) {
             throw new IllegalStateException("totalAmount variable is null");
         }
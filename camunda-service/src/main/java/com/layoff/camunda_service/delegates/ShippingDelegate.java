@@ -6,31 +6,50 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Component("shippingDelegate")
-public class ShippingDelegate implements JavaDelegate {
+public class ShippingDelegate implements JavaDelegate, ExternalTaskHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(ShippingDelegate.class);
     
+    public static final String TOPIC = "order-shipping";
+    
     @Override
     public void execute(DelegateExecution execution) throws Exception {
-        Long orderId = getOrderIdAsLong(execution);
+        execution.setVariables(handle(execution.getVariables()));
+    }
+    
+    @Override
+    public String topic() {
+        return TOPIC;
+    }
+    
+    @Override
+    public List<String> variableNames() {
+        return List.of("orderId");
+    }
+    
+    @Override
+    public Map<String, Object> handle(Map<String, Object> variables) {
+        Long orderId = getOrderIdAsLong(variables);
         
         logger.info("Shipping order: {}", orderId);
         
         // Simulate shipping process
         String trackingNumber = "TRACK-" + System.currentTimeMillis();
-        execution.setVariable("trackingNumber", trackingNumber);
-        execution.setVariable("orderShipped", true);
         
         logger.info("Order {} shipped successfully. Tracking Number: {}", orderId, trackingNumber);
+        return Map.of("trackingNumber", trackingNumber, "orderShipped", true);
     }
     
     /**
      * Safely extracts orderId as Long from process variables.
      * Handles both Integer and Long types that Camunda might store.
      */
-    private Long getOrderIdAsLong(DelegateExecution execution) {
-        Object orderIdObj = execution.getVariable("orderId");
+    private Long getOrderIdAsLong(Map<String, Object> variables) {
+        Object orderIdObj = variables.get("orderId");
         if (orderIdObj == null) {
             throw new IllegalStateException("orderId variable is null");
         }
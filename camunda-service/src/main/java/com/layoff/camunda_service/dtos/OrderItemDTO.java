@@ -0,0 +1,5 @@
+package com.layoff.camunda_service.dtos;
+
+import java.math.BigDecimal;
+
+public record OrderItemDTO(Long id, String productId, Integer quantity, BigDecimal price, BigDecimal subtotal) {}
@@ -2,76 +2,163 @@ package com.layoff.camunda_service.services;
 
 import com.layoff.camunda_service.dtos.GroupDTO;
 import com.layoff.camunda_service.dtos.UserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Service to retrieve users and groups from Camunda identity tables in the database.
+ *
+ * Users and groups are read together with their memberships in one LEFT JOIN each,
+ * aggregated row by row, and kept as an in-memory snapshot for
+ * {@code camunda.identity.snapshot-ttl-ms}. Listings, pages and lookups are served
+ * from the snapshot; {@link #invalidate()} forces a reload after identity data is
+ * written (e.g. by {@code CamundaDataInitializer}).
  */
 @Service
 public class CamundaIdentityService {
     
     private static final Logger logger = LoggerFactory.getLogger(CamundaIdentityService.class);
+
+    private static final String USERS_WITH_GROUPS = """
+        SELECT u.ID_, u.FIRST_, u.LAST_, u.EMAIL_, m.GROUP_ID_
+        FROM ACT_ID_USER u
+        LEFT JOIN ACT_ID_MEMBERSHIP m ON m.USER_ID_ = u.ID_
+        %s
+        ORDER BY u.ID_, m.GROUP_ID_
+        """;
+
+    private static final String GROUPS_WITH_USERS = """
+        SELECT g.ID_, g.NAME_, g.TYPE_, m.USER_ID_
+        FROM ACT_ID_GROUP g
+        LEFT JOIN ACT_ID_MEMBERSHIP m ON m.GROUP_ID_ = g.ID_
+        %s
+        ORDER BY g.ID_, m.USER_ID_
+        """;
+
+    /** Users and groups sorted by id, with lookup maps over the same objects. */
+    private record IdentitySnapshot(List<UserDTO> users, Map<String, UserDTO> usersById,
+                                    List<GroupDTO> groups, Map<String, GroupDTO> groupsById,
+                                    long loadedAtMillis) {}
+
+    /** Folds consecutive join rows of one user into a single UserDTO. */
+    private static final ResultSetExtractor<List<UserDTO>> USER_AGGREGATOR = rs -> {
+        List<UserDTO> users = new ArrayList<>();
+        String currentId = null;
+        String firstName = null;
+        String lastName = null;
+        String email = null;
+        List<String> groups = null;
+        while (rs.next()) {
+            String userId = rs.getString("ID_");
+            if (!userId.equals(currentId)) {
+                if (currentId != null) {
+                    users.add(new UserDTO(currentId, firstName, lastName, email, List.copyOf(groups)));
+                }
+                currentId = userId;
+                firstName = rs.getString("FIRST_");
+                lastName = rs.getString("LAST_");
+                email = rs.getString("EMAIL_");
+                groups = new ArrayList<>();
+            }
+            String groupId = rs.getString("GROUP_ID_");
+            if (groupId != null) {
+                groups.add(groupId);
+            }
+        }
+        if (currentId != null) {
+            users.add(new UserDTO(currentId, firstName, lastName, email, List.copyOf(groups)));
+        }
+        return users;
+    };
+
+    /** Folds consecutive join rows of one group into a single GroupDTO. */
+    private static final ResultSetExtractor<List<GroupDTO>> GROUP_AGGREGATOR = rs -> {
+        List<GroupDTO> groups = new ArrayList<>();
+        String currentId = null;
+        String name = null;
+        String type = null;
+        List<String> userIds = null;
+        while (rs.next()) {
+            String groupId = rs.getString("ID_");
+            if (!groupId.equals(currentId)) {
+                if (currentId != null) {
+                    groups.add(new GroupDTO(currentId, name, type, List.copyOf(userIds)));
+                }
+                currentId = groupId;
+                name = rs.getString("NAME_");
+                type = rs.getString("TYPE_");
+                userIds = new ArrayList<>();
+            }
+            String userId = rs.getString("USER_ID_");
+            if (userId != null) {
+                userIds.add(userId);
+            }
+        }
+        if (currentId != null) {
+            groups.add(new GroupDTO(currentId, name, type, List.copyOf(userIds)));
+        }
+        return groups;
+    };
     
     private final JdbcTemplate jdbcTemplate;
+    private final long snapshotTtlMs;
+    private final Timer snapshotLoadTimer;
+
+    private volatile IdentitySnapshot snapshot;
     
-    public CamundaIdentityService(JdbcTemplate jdbcTemplate) {
+    public CamundaIdentityService(JdbcTemplate jdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${camunda.identity.snapshot-ttl-ms:60000}") long snapshotTtlMs) {
         this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTtlMs = snapshotTtlMs;
+        this.snapshotLoadTimer = Timer.builder("camunda.identity.snapshot.load")
+                .description("Time to load all users, groups and memberships")
+                .register(meterRegistry);
     }
     
     /**
      * Get all users from ACT_ID_USER table
      */
     public List<UserDTO> getAllUsers() {
-        try {
-            String sql = "SELECT ID_, FIRST_, LAST_, EMAIL_ FROM ACT_ID_USER ORDER BY ID_";
-            
-            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-            List<UserDTO> users = new ArrayList<>();
-            
-            for (Map<String, Object> row : rows) {
-                String userId = (String) row.get("ID_");
-                String firstName = (String) row.get("FIRST_");
-                String lastName = (String) row.get("LAST_");
-                String email = (String) row.get("EMAIL_");
-                
-                // Get groups for this user
-                List<String> groups = getUserGroups(userId);
-                
-                users.add(new UserDTO(userId, firstName, lastName, email, groups));
-            }
-            
-            logger.info("Retrieved {} users from database", users.size());
-            return users;
-        } catch (Exception e) {
-            logger.error("Error retrieving users from database", e);
-            throw new RuntimeException("Failed to retrieve users", e);
-        }
+        List<UserDTO> users = snapshot().users();
+        logger.debug("Retrieved {} users", users.size());
+        return users;
+    }
+
+    /**
+     * Get one page of users, ordered by ID
+     */
+    public List<UserDTO> getUsers(int page, int size) {
+        return page(snapshot().users(), page, size);
+    }
+
+    public int countUsers() {
+        return snapshot().users().size();
     }
     
     /**
      * Get a specific user by ID
      */
     public UserDTO getUserById(String userId) {
+        UserDTO user = snapshot().usersById().get(userId);
+        if (user != null) {
+            return user;
+        }
+        // not in the snapshot (yet): one query rather than waiting for the TTL
         try {
-            String sql = "SELECT ID_, FIRST_, LAST_, EMAIL_ FROM ACT_ID_USER WHERE ID_ = ?";
-            
-            Map<String, Object> row = jdbcTemplate.queryForMap(sql, userId);
-            
-            String firstName = (String) row.get("FIRST_");
-            String lastName = (String) row.get("LAST_");
-            String email = (String) row.get("EMAIL_");
-            
-            // Get groups for this user
-            List<String> groups = getUserGroups(userId);
-            
-            return new UserDTO(userId, firstName, lastName, email, groups);
+            List<UserDTO> users = jdbcTemplate.query(USERS_WITH_GROUPS.formatted("WHERE u.ID_ = ?"), USER_AGGREGATOR, userId);
+            return users == null || users.isEmpty() ? null : users.get(0);
         } catch (Exception e) {
             logger.error("Error retrieving user {} from database", userId, e);
             return null;
@@ -82,47 +169,33 @@ public class CamundaIdentityService {
      * Get all groups from ACT_ID_GROUP table
      */
     public List<GroupDTO> getAllGroups() {
-        try {
-            String sql = "SELECT ID_, NAME_, TYPE_ FROM ACT_ID_GROUP ORDER BY ID_";
-            
-            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-            List<GroupDTO> groups = new ArrayList<>();
-            
-            for (Map<String, Object> row : rows) {
-                String groupId = (String) row.get("ID_");
-                String name = (String) row.get("NAME_");
-                String type = (String) row.get("TYPE_");
-                
-                // Get users in this group
-                List<String> userIds = getGroupUsers(groupId);
-                
-                groups.add(new GroupDTO(groupId, name, type, userIds));
-            }
-            
-            logger.info("Retrieved {} groups from database", groups.size());
-            return groups;
-        } catch (Exception e) {
-            logger.error("Error retrieving groups from database", e);
-            throw new RuntimeException("Failed to retrieve groups", e);
-        }
+        List<GroupDTO> groups = snapshot().groups();
+        logger.debug("Retrieved {} groups", groups.size());
+        return groups;
+    }
+
+    /**
+     * Get one page of groups, ordered by ID
+     */
+    public List<GroupDTO> getGroups(int page, int size) {
+        return page(snapshot().groups(), page, size);
+    }
+
+    public int countGroups() {
+        return snapshot().groups().size();
     }
     
     /**
      * Get a specific group by ID
      */
     public GroupDTO getGroupById(String groupId) {
+        GroupDTO group = snapshot().groupsById().get(groupId);
+        if (group != null) {
+            return group;
+        }
         try {
-            String sql = "SELECT ID_, NAME_, TYPE_ FROM ACT_ID_GROUP WHERE ID_ = ?";
-            
-            Map<String, Object> row = jdbcTemplate.queryForMap(sql, groupId);
-            
-            String name = (String) row.get("NAME_");
-            String type = (String) row.get("TYPE_");
-            
-            // Get users in this group
-            List<String> userIds = getGroupUsers(groupId);
-            
-            return new GroupDTO(groupId, name, type, userIds);
+            List<GroupDTO> groups = jdbcTemplate.query(GROUPS_WITH_USERS.formatted("WHERE g.ID_ = ?"), GROUP_AGGREGATOR, groupId);
+            return groups == null || groups.isEmpty() ? null : groups.get(0);
         } catch (Exception e) {
             logger.error("Error retrieving group {} from database", groupId, e);
             return null;
@@ -133,66 +206,76 @@ public class CamundaIdentityService {
      * Get groups for a specific user
      */
     public List<String> getUserGroups(String userId) {
-        try {
-            String sql = "SELECT GROUP_ID_ FROM ACT_ID_MEMBERSHIP WHERE USER_ID_ = ? ORDER BY GROUP_ID_";
-            
-            List<String> groups = jdbcTemplate.queryForList(sql, String.class, userId);
-            return groups != null ? groups : new ArrayList<>();
-        } catch (Exception e) {
-            logger.error("Error retrieving groups for user {}", userId, e);
-            return new ArrayList<>();
-        }
+        UserDTO user = getUserById(userId);
+        return user != null ? user.groups() : new ArrayList<>();
     }
     
     /**
      * Get users in a specific group
      */
     public List<String> getGroupUsers(String groupId) {
-        try {
-            String sql = "SELECT USER_ID_ FROM ACT_ID_MEMBERSHIP WHERE GROUP_ID_ = ? ORDER BY USER_ID_";
-            
-            List<String> users = jdbcTemplate.queryForList(sql, String.class, groupId);
-            return users != null ? users : new ArrayList<>();
-        } catch (Exception e) {
-            logger.error("Error retrieving users for group {}", groupId, e);
-            return new ArrayList<>();
-        }
+        GroupDTO group = getGroupById(groupId);
+        return group != null ? group.userIds() : new ArrayList<>();
     }
     
     /**
      * Get users by group ID
      */
     public List<UserDTO> getUsersByGroup(String groupId) {
-        try {
-            String sql = """
-                SELECT u.ID_, u.FIRST_, u.LAST_, u.EMAIL_
-                FROM ACT_ID_USER u
-                INNER JOIN ACT_ID_MEMBERSHIP m ON u.ID_ = m.USER_ID_
-                WHERE m.GROUP_ID_ = ?
-                ORDER BY u.ID_
-                """;
-            
-            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, groupId);
-            List<UserDTO> users = new ArrayList<>();
-            
-            for (Map<String, Object> row : rows) {
-                String userId = (String) row.get("ID_");
-                String firstName = (String) row.get("FIRST_");
-                String lastName = (String) row.get("LAST_");
-                String email = (String) row.get("EMAIL_");
-                
-                // Get all groups for this user
-                List<String> groups = getUserGroups(userId);
-                
-                users.add(new UserDTO(userId, firstName, lastName, email, groups));
+        IdentitySnapshot current = snapshot();
+        GroupDTO group = current.groupsById().get(groupId);
+        if (group == null) {
+            return List.of();
+        }
+        List<UserDTO> users = new ArrayList<>(group.userIds().size());
+        for (String userId : group.userIds()) {
+            UserDTO user = current.usersById().get(userId);
+            if (user != null) {
+                users.add(user);
             }
-            
-            logger.info("Retrieved {} users for group {}", users.size(), groupId);
-            return users;
+        }
+        logger.debug("Retrieved {} users for group {}", users.size(), groupId);
+        return users;
+    }
+
+    /** Drops the snapshot so the next read loads users, groups and memberships again. */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private IdentitySnapshot snapshot() {
+        IdentitySnapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAtMillis() < snapshotTtlMs) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || System.currentTimeMillis() - current.loadedAtMillis() >= snapshotTtlMs) {
+                current = snapshotLoadTimer.record(this::loadSnapshot);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private IdentitySnapshot loadSnapshot() {
+        try {
+            List<UserDTO> users = List.copyOf(jdbcTemplate.query(USERS_WITH_GROUPS.formatted(""), USER_AGGREGATOR));
+            List<GroupDTO> groups = List.copyOf(jdbcTemplate.query(GROUPS_WITH_USERS.formatted(""), GROUP_AGGREGATOR));
+            Map<String, UserDTO> usersById = new LinkedHashMap<>();
+            users.forEach(user -> usersById.put(user.id(), user));
+            Map<String, GroupDTO> groupsById = new LinkedHashMap<>();
+            groups.forEach(group -> groupsById.put(group.id(), group));
+            logger.info("Loaded identity snapshot: {} users, {} groups", users.size(), groups.size());
+            return new IdentitySnapshot(users, usersById, groups, groupsById, System.currentTimeMillis());
         } catch (Exception e) {
-            logger.error("Error retrieving users for group {}", groupId, e);
-            throw new RuntimeException("Failed to retrieve users for group", e);
+            logger.error("Error retrieving users and groups from database", e);
+            throw new RuntimeException("Failed to retrieve users and groups", e);
         }
     }
-}
 
+    private static <T> List<T> page(List<T> all, int page, int size) {
+        int from = (int) Math.min((long) page * size, all.size());
+        return all.subList(from, Math.min(from + size, all.size()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.layoff.camunda_service.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes idle external-task workers in this JVM when a task on their topic is committed.
+ *
+ * Tasks created by another engine node are not signalled; workers still find them
+ * when their wait times out.
+ */
+@Component
+public class ExternalTaskSignal {
+
+    private final Map<String, Semaphore> topics = new ConcurrentHashMap<>();
+
+    public void signal(String topic) {
+        Semaphore semaphore = semaphore(topic);
+        if (semaphore.availablePermits() == 0) {
+            semaphore.release();
+        }
+    }
+
+    /** Waits up to {@code timeoutMs} for a signal; returns whether one arrived. */
+    public boolean await(String topic, long timeoutMs) throws InterruptedException {
+        Semaphore semaphore = semaphore(topic);
+        boolean signalled = semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        semaphore.drainPermits();
+        return signalled;
+    }
+
+    private Semaphore semaphore(String topic) {
+        return topics.computeIfAbsent(topic, t -> new Semaphore(0));
+    }
+}
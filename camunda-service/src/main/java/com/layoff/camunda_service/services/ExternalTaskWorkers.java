@@ -0,0 +1,336 @@
+package com.layoff.camunda_service.services;
+
+import com.layoff.camunda_service.delegates.ExternalTaskHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.camunda.bpm.engine.ExternalTaskService;
+import org.camunda.bpm.engine.externaltask.LockedExternalTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches and runs the external tasks of every {@link ExternalTaskHandler} topic.
+ *
+ * Each topic has its own fetch thread and processing pool, so a slow payment
+ * gateway does not hold up shipping and never occupies engine threads. A fetch
+ * locks up to {@code camunda.external-tasks.max-tasks} tasks; when none are
+ * available the thread waits up to {@code camunda.external-tasks.long-poll-ms},
+ * woken early by {@link ExternalTaskSignal} when a task is committed in this JVM.
+ * The batch is handled in parallel and all successful tasks are completed in one
+ * transaction; if that fails they are completed one by one. Failed tasks count
+ * down their retries and end in an incident when none are left.
+ *
+ * Workers run in every node with {@code camunda.external-tasks.workers.enabled},
+ * either next to the engine or in a worker-only node sharing its database.
+ */
+@Component
+public class ExternalTaskWorkers implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalTaskWorkers.class);
+
+    private record Outcome(LockedExternalTask task, Map<String, Object> variables, Exception error) {}
+
+    private final ExternalTaskService externalTaskService;
+    private final List<ExternalTaskHandler> handlers;
+    private final ExternalTaskSignal signal;
+    private final TransactionTemplate completionTransaction;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String workerId;
+    private final int maxTasks;
+    private final long lockDurationMs;
+    private final long longPollMs;
+    private final int threads;
+    private final int maxRetries;
+    private final long retryTimeoutMs;
+
+    private final List<TopicWorker> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public ExternalTaskWorkers(ExternalTaskService externalTaskService,
+                               List<ExternalTaskHandler> handlers,
+                               ExternalTaskSignal signal,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${camunda.external-tasks.workers.enabled:${camunda.external-tasks.enabled:false}}") boolean enabled,
+                               @Value("${camunda.external-tasks.worker-id:}") String workerId,
+                               @Value("${camunda.external-tasks.max-tasks:50}") int maxTasks,
+                               @Value("${camunda.external-tasks.lock-duration-ms:60000}") long lockDurationMs,
+                               @Value("${camunda.external-tasks.long-poll-ms:5000}") long longPollMs,
+                               @Value("${camunda.external-tasks.threads:8}") int threads,
+                               @Value("${camunda.external-tasks.max-retries:3}") int maxRetries,
+                               @Value("${camunda.external-tasks.retry-timeout-ms:30000}") long retryTimeoutMs) {
+        this.externalTaskService = externalTaskService;
+        this.handlers = handlers;
+        this.signal = signal;
+        this.completionTransaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.workerId = workerId.isBlank() ? defaultWorkerId() : workerId;
+        this.maxTasks = Math.max(1, maxTasks);
+        this.lockDurationMs = lockDurationMs;
+        this.longPollMs = longPollMs;
+        this.threads = Math.max(1, threads);
+        this.maxRetries = Math.max(1, maxRetries);
+        this.retryTimeoutMs = retryTimeoutMs;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        for (ExternalTaskHandler handler : handlers) {
+            TopicWorker worker = new TopicWorker(handler);
+            workers.add(worker);
+            worker.fetcher.start();
+        }
+        logger.info("Started external-task worker {} for {} topic(s)", workerId, workers.size());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // wake idle fetchers; busy ones finish and complete their current batch, then exit
+        for (TopicWorker worker : workers) {
+            signal.signal(worker.handler.topic());
+        }
+        // one deadline for all topics: past the lock duration another worker may take the tasks anyway
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockDurationMs);
+        try {
+            for (TopicWorker worker : workers) {
+                TimeUnit.NANOSECONDS.timedJoin(worker.fetcher, deadline - System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (TopicWorker worker : workers) {
+            if (worker.fetcher.isAlive()) {
+                logger.warn("External-task worker for topic {} did not finish its batch in time, interrupting it",
+                        worker.handler.topic());
+                worker.fetcher.interrupt();
+                worker.pool.shutdownNow();
+            } else {
+                worker.pool.shutdown();
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private final class TopicWorker implements Runnable {
+
+        private final ExternalTaskHandler handler;
+        private final ExecutorService pool;
+        private final Thread fetcher;
+        private final Timer fetchTimer;
+        private final DistributionSummary fetchedSummary;
+        private final Timer handleTimer;
+        private final Timer latencyTimer;
+        private final Counter completedCounter;
+        private final Counter failedCounter;
+
+        TopicWorker(ExternalTaskHandler handler) {
+            String topic = handler.topic();
+            this.handler = handler;
+            this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "external-task-" + topic);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.fetcher = new Thread(this, "external-task-fetch-" + topic);
+            this.fetcher.setDaemon(true);
+            this.fetchTimer = Timer.builder("camunda.external-task.fetch")
+                    .description("Time for one fetch-and-lock call")
+                    .tag("topic", topic)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.fetchedSummary = DistributionSummary.builder("camunda.external-task.fetched")
+                    .description("Tasks locked per non-empty fetch")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+            this.handleTimer = Timer.builder("camunda.external-task.handle")
+                    .description("Time the handler spent on one task")
+                    .tag("topic", topic)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.latencyTimer = Timer.builder("camunda.external-task.latency")
+                    .description("Time from task creation to completion")
+                    .tag("topic", topic)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.completedCounter = Counter.builder("camunda.external-task.completed")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+            this.failedCounter = Counter.builder("camunda.external-task.failed")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    List<LockedExternalTask> tasks = fetch();
+                    if (tasks.isEmpty()) {
+                        signal.await(handler.topic(), longPollMs);
+                    } else {
+                        fetchedSummary.record(tasks.size());
+                        process(tasks);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    logger.warn("External-task worker for topic {} failed: {}", handler.topic(), e.getMessage());
+                    try {
+                        Thread.sleep(longPollMs);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private List<LockedExternalTask> fetch() {
+            long start = System.nanoTime();
+            try {
+                return externalTaskService.fetchAndLock(maxTasks, workerId, true)
+                        .topic(handler.topic(), lockDurationMs)
+                        .variables(handler.variableNames())
+                        .execute();
+            } finally {
+                fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void process(List<LockedExternalTask> tasks) throws InterruptedException {
+            List<Callable<Outcome>> calls = new ArrayList<>(tasks.size());
+            for (LockedExternalTask task : tasks) {
+                calls.add(() -> handle(task));
+            }
+            List<Outcome> succeeded = new ArrayList<>(tasks.size());
+            for (Future<Outcome> future : pool.invokeAll(calls)) {
+                Outcome outcome;
+                try {
+                    outcome = future.get();
+                } catch (ExecutionException e) {
+                    // handle() catches everything the handler throws
+                    throw new IllegalStateException(e.getCause());
+                }
+                if (outcome.error() == null) {
+                    succeeded.add(outcome);
+                } else {
+                    fail(outcome);
+                }
+            }
+            completeAll(succeeded);
+        }
+
+        private Outcome handle(LockedExternalTask task) {
+            long start = System.nanoTime();
+            try {
+                return new Outcome(task, handler.handle(task.getVariables()), null);
+            } catch (Exception e) {
+                return new Outcome(task, null, e);
+            } finally {
+                handleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void completeAll(List<Outcome> outcomes) {
+            if (outcomes.isEmpty()) {
+                return;
+            }
+            try {
+                completionTransaction.executeWithoutResult(status -> outcomes.forEach(this::complete));
+                outcomes.forEach(this::recordCompleted);
+            } catch (RuntimeException e) {
+                logger.warn("Completing {} {} task(s) together failed, completing them one by one: {}",
+                        outcomes.size(), handler.topic(), e.getMessage());
+                for (Outcome outcome : outcomes) {
+                    try {
+                        complete(outcome);
+                        recordCompleted(outcome);
+                    } catch (RuntimeException single) {
+                        // usually the lock expired and another worker took the task over
+                        failedCounter.increment();
+                        logger.warn("Could not complete {} task {}: {}",
+                                handler.topic(), outcome.task().getId(), single.getMessage());
+                    }
+                }
+            }
+        }
+
+        private void complete(Outcome outcome) {
+            externalTaskService.complete(outcome.task().getId(), workerId, outcome.variables());
+        }
+
+        private void recordCompleted(Outcome outcome) {
+            completedCounter.increment();
+            if (outcome.task().getCreateTime() != null) {
+                latencyTimer.record(System.currentTimeMillis() - outcome.task().getCreateTime().getTime(),
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void fail(Outcome outcome) {
+            failedCounter.increment();
+            LockedExternalTask task = outcome.task();
+            int retries = task.getRetries() == null ? maxRetries - 1 : task.getRetries() - 1;
+            logger.error("{} task {} for process instance {} failed, {} retries left",
+                    handler.topic(), task.getId(), task.getProcessInstanceId(), Math.max(retries, 0), outcome.error());
+            try {
+                externalTaskService.handleFailure(task.getId(), workerId, outcome.error().getMessage(),
+                        stackTrace(outcome.error()), Math.max(retries, 0), retryTimeoutMs);
+            } catch (RuntimeException e) {
+                logger.warn("Could not report failure of {} task {}: {}", handler.topic(), task.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private static String stackTrace(Exception e) {
+        StringWriter writer = new StringWriter();
+        e.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    private static String defaultWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown-host";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
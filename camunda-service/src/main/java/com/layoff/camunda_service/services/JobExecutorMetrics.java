@@ -0,0 +1,142 @@
+package com.layoff.camunda_service.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquireJobsCommandFactory;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultAcquireJobsCommandFactory;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics for the job executor that runs the async continuations of order_process.
+ *
+ * Every acquisition cycle is timed by wrapping the executor's acquire-jobs command,
+ * so {@code camunda.jobs.acquisition} shows how long the lock-and-fetch query takes
+ * and {@code camunda.jobs.acquired} how many jobs each cycle picked up. The backlog
+ * gauges come from one aggregate query on ACT_RU_JOB, cached for
+ * {@code camunda.jobs.metrics.sample-ms} so scrapes do not hit the database each time.
+ */
+@Component
+public class JobExecutorMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobExecutorMetrics.class);
+
+    private static final String BACKLOG_SQL = """
+        SELECT
+          SUM(CASE WHEN RETRIES_ > 0 AND SUSPENSION_STATE_ = 1 AND (DUEDATE_ IS NULL OR DUEDATE_ <= ?)
+                    AND (LOCK_OWNER_ IS NULL OR LOCK_EXP_TIME_ < ?) THEN 1 ELSE 0 END) AS WAITING,
+          SUM(CASE WHEN LOCK_OWNER_ IS NOT NULL AND LOCK_EXP_TIME_ >= ? THEN 1 ELSE 0 END) AS LOCKED,
+          SUM(CASE WHEN RETRIES_ = 0 THEN 1 ELSE 0 END) AS FAILED,
+          MIN(CASE WHEN RETRIES_ > 0 AND SUSPENSION_STATE_ = 1 AND (DUEDATE_ IS NULL OR DUEDATE_ <= ?)
+                    AND (LOCK_OWNER_ IS NULL OR LOCK_EXP_TIME_ < ?) THEN COALESCE(DUEDATE_, CREATE_TIME_) END) AS OLDEST
+        FROM ACT_RU_JOB
+        """;
+
+    private record BacklogSample(long waiting, long locked, long failed, long oldestWaitMillis, long sampledAtMillis) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long sampleMs;
+    private final Timer acquisitionTimer;
+    private final DistributionSummary acquiredSummary;
+    private final Counter lockFailures;
+
+    private volatile BacklogSample backlog = new BacklogSample(0, 0, 0, 0, 0);
+
+    public JobExecutorMetrics(ObjectProvider<JobExecutor> jobExecutor,
+                              JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${camunda.jobs.metrics.sample-ms:10000}") long sampleMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sampleMs = sampleMs;
+        this.acquisitionTimer = Timer.builder("camunda.jobs.acquisition")
+                .description("Time for one job acquisition cycle to select and lock jobs")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.acquiredSummary = DistributionSummary.builder("camunda.jobs.acquired")
+                .description("Jobs locked per acquisition cycle")
+                .register(meterRegistry);
+        this.lockFailures = Counter.builder("camunda.jobs.acquisition.lock.failed")
+                .description("Jobs another executor locked first")
+                .register(meterRegistry);
+        Gauge.builder("camunda.jobs.backlog", this, m -> m.sample().waiting())
+                .description("Executable jobs waiting to be acquired")
+                .register(meterRegistry);
+        Gauge.builder("camunda.jobs.locked", this, m -> m.sample().locked())
+                .register(meterRegistry);
+        Gauge.builder("camunda.jobs.failed", this, m -> m.sample().failed())
+                .description("Jobs with no retries left")
+                .register(meterRegistry);
+        Gauge.builder("camunda.jobs.oldest.wait", this, m -> m.sample().oldestWaitMillis() / 1000.0)
+                .description("How long the oldest executable job has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        // the executor only creates its default factory when none was set before start
+        jobExecutor.ifAvailable(executor -> {
+            AcquireJobsCommandFactory delegate = new DefaultAcquireJobsCommandFactory(executor);
+            executor.setAcquireJobsCmdFactory(numJobs -> timed(delegate.getCommand(numJobs)));
+        });
+    }
+
+    private Command<AcquiredJobs> timed(Command<AcquiredJobs> command) {
+        return new Command<>() {
+            @Override
+            public AcquiredJobs execute(CommandContext commandContext) {
+                long start = System.nanoTime();
+                AcquiredJobs acquired = command.execute(commandContext);
+                acquisitionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                acquiredSummary.record(acquired.size());
+                if (acquired.getNumberOfJobsFailedToLock() > 0) {
+                    lockFailures.increment(acquired.getNumberOfJobsFailedToLock());
+                }
+                return acquired;
+            }
+
+            @Override
+            public boolean isRetryable() {
+                return command.isRetryable();
+            }
+        };
+    }
+
+    private BacklogSample sample() {
+        BacklogSample current = backlog;
+        long now = System.currentTimeMillis();
+        if (now - current.sampledAtMillis() < sampleMs) {
+            return current;
+        }
+        synchronized (this) {
+            if (backlog != current) {
+                return backlog;
+            }
+            try {
+                Timestamp at = new Timestamp(now);
+                backlog = jdbcTemplate.queryForObject(BACKLOG_SQL, (rs, row) -> {
+                    Timestamp oldest = rs.getTimestamp("OLDEST");
+                    return new BacklogSample(rs.getLong("WAITING"), rs.getLong("LOCKED"), rs.getLong("FAILED"),
+                            oldest == null ? 0 : Math.max(0, now - oldest.getTime()), now);
+                }, at, at, at, at, at);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to sample the job backlog: {}", e.getMessage());
+                // keep the last values, but do not retry on every scrape
+                backlog = new BacklogSample(current.waiting(), current.locked(), current.failed(),
+                        current.oldestWaitMillis(), now);
+            }
+            return backlog;
+        }
+    }
+}
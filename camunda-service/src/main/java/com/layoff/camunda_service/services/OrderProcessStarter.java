@@ -0,0 +1,176 @@
+package com.layoff.camunda_service.services;
+
+import com.layoff.camunda_service.dtos.OrderCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts an {@code order_process} instance per consumed order.
+ *
+ * The latest definition ID is looked up once and reused for
+ * {@code camunda.order-process.definition-refresh-ms}, instead of querying the
+ * repository for every event. Batches are started in chunks of
+ * {@code camunda.order-process.chunk-size}, one transaction per chunk; if a chunk
+ * fails it is rolled back and its orders are started one by one, so one bad order
+ * does not hold back the rest. The variable/instance/task queries that only
+ * served logging run only with {@code camunda.order-process.diagnostics}.
+ */
+@Service
+public class OrderProcessStarter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderProcessStarter.class);
+
+    public static final String PROCESS_KEY = "order_process";
+
+    private record CachedDefinition(String id, long resolvedAtMillis) {}
+
+    private final RuntimeService runtimeService;
+    private final RepositoryService repositoryService;
+    private final TaskService taskService;
+    private final TransactionTemplate chunkTransaction;
+    private final boolean diagnostics;
+    private final int chunkSize;
+    private final long definitionRefreshMs;
+    private final Counter startedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    private volatile CachedDefinition definition;
+
+    public OrderProcessStarter(RuntimeService runtimeService,
+                               RepositoryService repositoryService,
+                               TaskService taskService,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${camunda.order-process.diagnostics:false}") boolean diagnostics,
+                               @Value("${camunda.order-process.chunk-size:50}") int chunkSize,
+                               @Value("${camunda.order-process.definition-refresh-ms:60000}") long definitionRefreshMs) {
+        this.runtimeService = runtimeService;
+        this.repositoryService = repositoryService;
+        this.taskService = taskService;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.diagnostics = diagnostics;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.definitionRefreshMs = definitionRefreshMs;
+        this.startedCounter = Counter.builder("camunda.order-process.started").register(meterRegistry);
+        this.failedCounter = Counter.builder("camunda.order-process.failed").register(meterRegistry);
+        this.batchTimer = Timer.builder("camunda.order-process.start.batch")
+                .description("Time to start the process instances for one consumed batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /** Starts one instance; failures are logged and counted, not thrown. */
+    public ProcessInstance start(OrderCreatedEvent event) {
+        try {
+            ProcessInstance instance = startInstance(event);
+            startedCounter.increment();
+            logger.info("Started process instance {} for OrderId: {}", instance.getId(), event.orderId());
+            if (diagnostics) {
+                logDiagnostics(instance);
+            }
+            return instance;
+        } catch (Exception e) {
+            failedCounter.increment();
+            logger.error("ERROR: Exception occurred while processing OrderCreatedEvent for OrderId: {}", event.orderId(), e);
+            return null;
+        }
+    }
+
+    /** Starts one instance per event in chunked transactions and returns how many were started. */
+    public int startAll(List<OrderCreatedEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int started = 0;
+        for (int from = 0; from < events.size(); from += chunkSize) {
+            List<OrderCreatedEvent> chunk = events.subList(from, Math.min(from + chunkSize, events.size()));
+            try {
+                chunkTransaction.executeWithoutResult(status -> chunk.forEach(this::startInstance));
+                startedCounter.increment(chunk.size());
+                started += chunk.size();
+            } catch (Exception e) {
+                logger.warn("Starting {} order process instance(s) together failed, starting them one by one: {}",
+                        chunk.size(), e.getMessage());
+                // the chunk was rolled back, so nothing in it has been started yet
+                for (OrderCreatedEvent event : chunk) {
+                    if (start(event) != null) {
+                        started++;
+                    }
+                }
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        logger.info("Started {} of {} order process instance(s) in {} ms ({} instances/s)",
+                started, events.size(), elapsedNanos / 1_000_000,
+                elapsedNanos == 0 ? started : Math.round(started * 1e9 / elapsedNanos));
+        return started;
+    }
+
+    private ProcessInstance startInstance(OrderCreatedEvent event) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("orderId", event.orderId());
+        vars.put("userId", event.userId());
+        vars.put("totalAmount", event.totalAmount());
+        return runtimeService.startProcessInstanceById(definitionId(), vars);
+    }
+
+    private String definitionId() {
+        CachedDefinition cached = definition;
+        if (cached != null && System.currentTimeMillis() - cached.resolvedAtMillis() < definitionRefreshMs) {
+            return cached.id();
+        }
+        ProcessDefinition latest = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey(PROCESS_KEY)
+                .latestVersion()
+                .singleResult();
+        if (latest == null) {
+            definition = null;
+            throw new IllegalStateException("Process definition '" + PROCESS_KEY + "' is not deployed");
+        }
+        if (cached == null || !cached.id().equals(latest.getId())) {
+            logger.info("Using process definition {} (version {})", latest.getId(), latest.getVersion());
+        }
+        definition = new CachedDefinition(latest.getId(), System.currentTimeMillis());
+        return latest.getId();
+    }
+
+    private void logDiagnostics(ProcessInstance processInstance) {
+        logger.info("Process instance variables: {}", runtimeService.getVariables(processInstance.getId()));
+        ProcessInstance activeInstance = runtimeService.createProcessInstanceQuery()
+                .processInstanceId(processInstance.getId())
+                .singleResult();
+        if (activeInstance == null) {
+            logger.warn("Process instance is NOT ACTIVE (may have completed or failed). ProcessInstanceId: {}", processInstance.getId());
+            return;
+        }
+        List<Task> tasks = taskService.createTaskQuery()
+                .processInstanceId(processInstance.getId())
+                .list();
+        logger.info("Found {} task(s) for ProcessInstanceId: {}", tasks.size(), processInstance.getId());
+        for (Task task : tasks) {
+            logger.info("Task - Id: {}, Name: {}, Assignee: {}, TaskDefinitionKey: {}",
+                    task.getId(), task.getName(), task.getAssignee(), task.getTaskDefinitionKey());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.layoff.camunda_service.services;
+
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.runtime.VariableInstance;
+import org.camunda.bpm.engine.runtime.VariableInstanceQuery;
+import org.camunda.bpm.engine.task.Task;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads process variables for a whole page of tasks or process instances with one
+ * variable-instance query, instead of one {@code getVariables} call per row.
+ *
+ * For tasks, the variables visible to a task are merged the way the engine scopes
+ * them: process-instance variables, then variables of the task's own execution,
+ * then task-local variables, each overriding the previous. Variables of other
+ * executions (e.g. sibling parallel branches) are not visible to the task.
+ */
+@Service
+public class VariableBatchLoader {
+
+    private final RuntimeService runtimeService;
+
+    public VariableBatchLoader(RuntimeService runtimeService) {
+        this.runtimeService = runtimeService;
+    }
+
+    /**
+     * Variables per process instance id, limited to {@code names} when not empty.
+     * Every requested id has an entry, possibly empty.
+     */
+    public Map<String, Map<String, Object>> forProcessInstances(Collection<String> processInstanceIds,
+                                                                Collection<String> names) {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        processInstanceIds.forEach(id -> result.put(id, new HashMap<>()));
+        if (processInstanceIds.isEmpty()) {
+            return result;
+        }
+        for (VariableInstance variable : query(processInstanceIds, names)) {
+            // only the instance's own scope, which is what getVariables(processInstanceId) returns
+            if (variable.getProcessInstanceId().equals(variable.getExecutionId()) && variable.getTaskId() == null) {
+                result.get(variable.getProcessInstanceId()).put(variable.getName(), variable.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Variables per task id, limited to {@code names} when not empty.
+     * Every task has an entry, possibly empty.
+     */
+    public Map<String, Map<String, Object>> forTasks(List<Task> tasks, Collection<String> names) {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        Set<String> processInstanceIds = new LinkedHashSet<>();
+        for (Task task : tasks) {
+            result.put(task.getId(), new HashMap<>());
+            if (task.getProcessInstanceId() != null) {
+                processInstanceIds.add(task.getProcessInstanceId());
+            }
+        }
+        if (processInstanceIds.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Map<String, Object>> byProcessInstance = new HashMap<>();
+        Map<String, Map<String, Object>> byExecution = new HashMap<>();
+        Map<String, Map<String, Object>> byTask = new HashMap<>();
+        for (VariableInstance variable : query(processInstanceIds, names)) {
+            Map<String, Map<String, Object>> scope;
+            String scopeId;
+            if (variable.getTaskId() != null) {
+                scope = byTask;
+                scopeId = variable.getTaskId();
+            } else if (variable.getExecutionId().equals(variable.getProcessInstanceId())) {
+                scope = byProcessInstance;
+                scopeId = variable.getProcessInstanceId();
+            } else {
+                scope = byExecution;
+                scopeId = variable.getExecutionId();
+            }
+            scope.computeIfAbsent(scopeId, id -> new HashMap<>()).put(variable.getName(), variable.getValue());
+        }
+
+        for (Task task : tasks) {
+            Map<String, Object> variables = result.get(task.getId());
+            variables.putAll(byProcessInstance.getOrDefault(task.getProcessInstanceId(), Map.of()));
+            variables.putAll(byExecution.getOrDefault(task.getExecutionId(), Map.of()));
+            variables.putAll(byTask.getOrDefault(task.getId(), Map.of()));
+        }
+        return result;
+    }
+
+    private List<VariableInstance> query(Collection<String> processInstanceIds, Collection<String> names) {
+        VariableInstanceQuery query = runtimeService.createVariableInstanceQuery()
+                .processInstanceIdIn(processInstanceIds.toArray(new String[0]));
+        if (names != null && !names.isEmpty()) {
+            query.variableNameIn(names.toArray(new String[0]));
+        }
+        return query.list();
+    }
+}
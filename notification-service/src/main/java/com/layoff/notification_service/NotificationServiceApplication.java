@@ -1,17 +1,22 @@
 package com.layoff.notification_service;
 
+import com.layoff.notification_service.dtos.OrderCreatedEvent;
+import com.layoff.notification_service.dtos.UserChangedEvent;
+import com.layoff.notification_service.services.OrderNotificationService;
+import com.layoff.notification_service.services.UserDirectory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.util.List;
 import java.util.function.Consumer;
 
-record OrderItemDTO(Long id, String productId, Integer quantity) {}
-record OrderCreatedEvent(Long orderId, String userId, String status, java.util.List<OrderItemDTO> items, java.math.BigDecimal totalAmount, java.time.LocalDateTime createdAt) {}
-
 @SpringBootApplication
+@EnableScheduling
 public class NotificationServiceApplication {
 
 	public static void main(String[] args) {
@@ -19,14 +24,20 @@ public class NotificationServiceApplication {
 	}
 
 	@Bean
-	public Consumer<OrderCreatedEvent> orderCreated(JavaMailSender mailSender) {
-		return event -> {
-			SimpleMailMessage message = new SimpleMailMessage();
-			message.setTo("danielshundessa@gmail.com");
-			message.setSubject("Order Created: #" + event.orderId());
-			message.setText("Order " + event.orderId() + " was created for user " + event.userId() +
-					" with total " + event.totalAmount() + ". Items: " + event.items().size());
-			mailSender.send(message);
-		};
+	public Consumer<OrderCreatedEvent> orderCreated(OrderNotificationService notifications) {
+		return event -> notifications.handle(List.of(event), null);
+	}
+
+	// Batch mode: one poll's worth of events is rendered and sent over the pooled connections together
+	@Bean
+	public Consumer<Message<List<OrderCreatedEvent>>> orderCreatedBatch(OrderNotificationService notifications) {
+		return message -> notifications.handle(message.getPayload(),
+				message.getHeaders().get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class));
+	}
+
+	// Keeps the local user directory current; no consumer group, so every instance sees every change
+	@Bean
+	public Consumer<UserChangedEvent> userChanges(UserDirectory userDirectory) {
+		return userDirectory::apply;
 	}
 }
@@ -0,0 +1,26 @@
+package com.layoff.notification_service.config;
+
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * Coalesced batches are acknowledged when their digests go out, which is not
+     * necessarily in the order they were consumed. Async acks make the container
+     * hold back each commit until every earlier offset has been acknowledged too.
+     */
+    @Bean
+    public ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> asyncAckCustomizer() {
+        return (container, destination, group) -> {
+            ContainerProperties properties = container.getContainerProperties();
+            if (properties.getAckMode() == ContainerProperties.AckMode.MANUAL) {
+                properties.setAsyncAcks(true);
+            }
+        };
+    }
+}
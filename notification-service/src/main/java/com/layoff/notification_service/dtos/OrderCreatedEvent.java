@@ -0,0 +1,8 @@
+package com.layoff.notification_service.dtos;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderCreatedEvent(Long orderId, String userId, String status, List<OrderItemDTO> items,
+                                BigDecimal totalAmount, LocalDateTime createdAt) {}
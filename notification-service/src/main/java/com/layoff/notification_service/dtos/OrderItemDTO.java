@@ -0,0 +1,3 @@
+package com.layoff.notification_service.dtos;
+
+public record OrderItemDTO(Long id, String productId, Integer quantity) {}
@@ -0,0 +1,8 @@
+package com.layoff.notification_service.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record UserChangedEvent(String userId, String changeType, UserDTO user, LocalDateTime changedAt) {}
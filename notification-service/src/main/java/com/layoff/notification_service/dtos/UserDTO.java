@@ -0,0 +1,7 @@
+package com.layoff.notification_service.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// user-service sends the full profile; only the fields needed to address mail are kept
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record UserDTO(String id, String firstName, String lastName, String email) {}
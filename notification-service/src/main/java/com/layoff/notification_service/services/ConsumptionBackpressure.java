@@ -0,0 +1,77 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pauses order consumption while too much mail is waiting to be sent.
+ *
+ * The queue depth is what the spool has not delivered yet plus what the coalescer
+ * still buffers. When it reaches {@code notification.backpressure.high-watermark}
+ * the {@code notification.backpressure.binding} is paused, which pauses its
+ * partitions on the Kafka consumer (it keeps polling, so the group does not
+ * rebalance); it is resumed once the depth drops to
+ * {@code notification.backpressure.low-watermark}. Rate limiting therefore slows
+ * the spool's sender, not the consumer threads.
+ */
+@Component
+public class ConsumptionBackpressure {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumptionBackpressure.class);
+
+    private final BindingsLifecycleController bindings;
+    private final MailSpool mailSpool;
+    private final NotificationCoalescer coalescer;
+    private final String binding;
+    private final long highWatermark;
+    private final long lowWatermark;
+
+    private volatile boolean paused;
+
+    public ConsumptionBackpressure(BindingsLifecycleController bindings,
+                                   MailSpool mailSpool,
+                                   NotificationCoalescer coalescer,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${notification.backpressure.binding:orderCreatedBatch-in-0}") String binding,
+                                   @Value("${notification.backpressure.high-watermark:5000}") long highWatermark,
+                                   @Value("${notification.backpressure.low-watermark:1000}") long lowWatermark) {
+        this.bindings = bindings;
+        this.mailSpool = mailSpool;
+        this.coalescer = coalescer;
+        this.binding = binding;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = Math.min(lowWatermark, highWatermark);
+        Gauge.builder("notification.backpressure.queue.depth", this, ConsumptionBackpressure::queueDepth)
+                .description("Messages spooled but not sent plus events buffered for digests")
+                .register(meterRegistry);
+        Gauge.builder("notification.backpressure.paused", this, s -> s.paused ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    public long queueDepth() {
+        return mailSpool.pending() + coalescer.bufferedEvents();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.backpressure.check-ms:500}")
+    public void check() {
+        if (highWatermark <= 0) {
+            return;
+        }
+        long depth = queueDepth();
+        if (!paused && depth >= highWatermark) {
+            bindings.pause(binding);
+            paused = true;
+            logger.info("Paused {}: {} notification(s) waiting to be sent", binding, depth);
+        } else if (paused && depth <= lowWatermark) {
+            bindings.resume(binding);
+            paused = false;
+            logger.info("Resumed {}: {} notification(s) waiting to be sent", binding, depth);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends batches of messages over pooled SMTP connections.
+ *
+ * A batch is split into at most {@code notification.mail.pool-size} contiguous
+ * lanes; each lane borrows one connection from {@link SmtpConnectionPool} and
+ * sends its messages back to back on it. A message that fails on a connection is
+ * retried once on a fresh one before it is reported as failed. A batch starts only
+ * once {@link SendRateLimiter} admits all of its messages.
+ */
+@Service
+public class MailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private final SmtpConnectionPool connectionPool;
+    private final SendRateLimiter rateLimiter;
+    private final int lanes;
+    private final ExecutorService laneExecutor;
+    private final Timer batchTimer;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+
+    public MailDispatcher(SmtpConnectionPool connectionPool,
+                          SendRateLimiter rateLimiter,
+                          MeterRegistry meterRegistry,
+                          @Value("${notification.mail.pool-size:4}") int lanes) {
+        this.connectionPool = connectionPool;
+        this.rateLimiter = rateLimiter;
+        this.lanes = lanes;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.laneExecutor = Executors.newFixedThreadPool(lanes, runnable -> {
+            Thread thread = new Thread(runnable, "mail-lane-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchTimer = Timer.builder("notification.mail.batch")
+                .description("Time to send one batch of notification emails")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("notification.mail.sent").register(meterRegistry);
+        this.failedCounter = Counter.builder("notification.mail.failed").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        laneExecutor.shutdownNow();
+    }
+
+    /**
+     * Sends every message, in parallel lanes, and waits for all of them.
+     *
+     * @throws MailSendException listing the messages that could not be sent
+     */
+    public void dispatch(List<MimeMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            rateLimiter.acquire(messages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // nothing was sent: list every message so callers keep them for a retry
+            Map<Object, Exception> notSent = new LinkedHashMap<>();
+            messages.forEach(message -> notSent.put(message, e));
+            throw new MailSendException("Interrupted while waiting for send tokens", e, notSent);
+        }
+        long start = System.nanoTime();
+        int laneCount = Math.min(lanes, messages.size());
+        int perLane = (messages.size() + laneCount - 1) / laneCount;
+        List<CompletableFuture<Map<Object, Exception>>> running = new ArrayList<>(laneCount);
+        for (int from = 0; from < messages.size(); from += perLane) {
+            List<MimeMessage> lane = messages.subList(from, Math.min(from + perLane, messages.size()));
+            running.add(CompletableFuture.supplyAsync(() -> sendLane(lane), laneExecutor));
+        }
+
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        for (CompletableFuture<Map<Object, Exception>> lane : running) {
+            failures.putAll(lane.join());
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        sentCounter.increment(messages.size() - failures.size());
+        failedCounter.increment(failures.size());
+        if (!failures.isEmpty()) {
+            throw new MailSendException(failures);
+        }
+    }
+
+    private Map<Object, Exception> sendLane(List<MimeMessage> lane) {
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        Transport transport = null;
+        int next = 0;
+        try {
+            for (; next < lane.size(); next++) {
+                MimeMessage message = lane.get(next);
+                prepare(message);
+                for (int attempt = 1; ; attempt++) {
+                    if (transport == null) {
+                        transport = connectionPool.borrow();
+                    }
+                    try {
+                        transport.sendMessage(message, message.getAllRecipients());
+                        break;
+                    } catch (MessagingException e) {
+                        connectionPool.release(transport, true);
+                        transport = null;
+                        if (attempt == 2) {
+                            logger.warn("Failed to send notification email: {}", e.getMessage());
+                            failures.put(message, e);
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (MessagingException e) {
+            // no connection could be opened: everything not yet sent in this lane fails
+            logger.warn("Could not connect to the mail server: {}", e.getMessage());
+            lane.subList(next, lane.size()).forEach(message -> failures.put(message, e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lane.subList(next, lane.size()).forEach(message -> failures.put(message, e));
+        } finally {
+            if (transport != null) {
+                connectionPool.release(transport, false);
+            }
+        }
+        return failures;
+    }
+
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+    }
+}
@@ -0,0 +1,269 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable hand-off between the Kafka consumer and the mail server.
+ *
+ * With {@code notification.spool.enabled}, {@link #send} only appends the rendered
+ * messages to a local {@link SegmentLog} and returns once they are on disk, so
+ * the consumer can commit its offsets regardless of how slow or unavailable SMTP
+ * is. A single background sender drains the log in batches of
+ * {@code notification.spool.batch-size} through {@link MailDispatcher} and moves the
+ * cursor only after a batch is delivered. When nothing in a batch could be sent
+ * and at least one failure was transient (server down, connection refused, 4xx)
+ * it backs off exponentially and retries. Messages the server rejected outright
+ * (5xx, invalid recipients) are moved to a dead-letter log so they cannot block the
+ * spool; transient failures in a partly delivered batch are appended to the spool
+ * again, so the messages that did go out are not resent.
+ * Without the spool, {@link #send} delivers inline.
+ */
+@Service
+public class MailSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailSpool.class);
+
+    private final MailDispatcher dispatcher;
+    private final Session session;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final SegmentLog log;
+    private final SegmentLog deadLetters;
+    private final Counter spooledCounter;
+    private final Counter deadLetterCounter;
+
+    private volatile boolean running;
+    private Thread sender;
+
+    public MailSpool(JavaMailSender mailSender,
+                     MailDispatcher dispatcher,
+                     MeterRegistry meterRegistry,
+                     @Value("${notification.spool.enabled:false}") boolean enabled,
+                     @Value("${notification.spool.dir:${java.io.tmpdir}/notification-service/spool}") String directory,
+                     @Value("${notification.spool.segment-bytes:67108864}") long segmentBytes,
+                     @Value("${notification.spool.fsync:true}") boolean fsync,
+                     @Value("${notification.spool.batch-size:100}") int batchSize,
+                     @Value("${notification.spool.initial-backoff-ms:1000}") long initialBackoffMs,
+                     @Value("${notification.spool.max-backoff-ms:60000}") long maxBackoffMs) {
+        this.dispatcher = dispatcher;
+        this.session = ((JavaMailSenderImpl) mailSender).getSession();
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        try {
+            this.log = enabled ? new SegmentLog(Path.of(directory), segmentBytes, fsync) : null;
+            this.deadLetters = enabled ? new SegmentLog(Path.of(directory, "dead-letter"), segmentBytes, fsync) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open mail spool in " + directory, e);
+        }
+        this.spooledCounter = Counter.builder("notification.spool.appended").register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("notification.spool.dead.lettered").register(meterRegistry);
+        Gauge.builder("notification.spool.pending", this, MailSpool::pending)
+                .description("Messages spooled but not yet delivered")
+                .register(meterRegistry);
+    }
+
+    public long pending() {
+        if (log == null) {
+            return 0;
+        }
+        synchronized (log) {
+            return log.pending();
+        }
+    }
+
+    /** Spools the messages durably, or sends them right away when the spool is off. */
+    public void send(List<MimeMessage> messages) {
+        if (!enabled) {
+            dispatcher.dispatch(messages);
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(messages.size());
+        for (MimeMessage message : messages) {
+            records.add(serialize(message));
+        }
+        synchronized (log) {
+            try {
+                log.append(records);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not spool " + records.size() + " message(s)", e);
+            }
+            log.notifyAll();
+        }
+        spooledCounter.increment(records.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSender() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        sender = new Thread(this::drain, "mail-spool-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        running = false;
+        if (sender != null) {
+            sender.interrupt();
+            sender.join(10_000);
+        }
+        if (log != null) {
+            synchronized (log) {
+                log.close();
+                deadLetters.close();
+            }
+        }
+    }
+
+    private void drain() {
+        long backoff = initialBackoffMs;
+        while (running) {
+            try {
+                List<SegmentLog.Entry> entries;
+                synchronized (log) {
+                    while (running && log.pending() == 0) {
+                        log.wait(1000);
+                    }
+                    entries = log.read(batchSize);
+                }
+                if (entries.isEmpty()) {
+                    continue;
+                }
+                if (deliver(entries)) {
+                    backoff = initialBackoffMs;
+                } else {
+                    logger.warn("Mail server unavailable, retrying spooled messages in {} ms", backoff);
+                    Thread.sleep(backoff);
+                    backoff = Math.min(maxBackoffMs, backoff * 2);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Mail spool sender failed, retrying: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Sends one batch. Messages the server rejected for good go to the dead-letter
+     * log. If nothing went out, the cursor stays put. Otherwise the cursor moves
+     * past the batch, and messages that failed transiently are appended to the
+     * spool again.
+     *
+     * @return false when some messages must be retried and the sender should back off
+     */
+    private boolean deliver(List<SegmentLog.Entry> entries) throws IOException {
+        List<MimeMessage> messages = new ArrayList<>(entries.size());
+        List<byte[]> rejected = new ArrayList<>();
+        for (SegmentLog.Entry entry : entries) {
+            try {
+                messages.add(new MimeMessage(session, new ByteArrayInputStream(entry.payload())));
+            } catch (MessagingException e) {
+                rejected.add(entry.payload());
+            }
+        }
+
+        List<byte[]> retry = new ArrayList<>();
+        try {
+            dispatcher.dispatch(messages);
+        } catch (MailSendException e) {
+            Map<Object, Exception> failures = e.getFailedMessages();
+            // an exception that names no message does not say what went out: assume nothing did
+            boolean anyDelivered = !failures.isEmpty() && failures.size() < messages.size();
+            boolean anyTransient = failures.isEmpty()
+                    || !failures.values().stream().allMatch(MailSpool::isPermanentRejection);
+            if (!anyDelivered && anyTransient) {
+                return false;
+            }
+            for (MimeMessage message : messages) {
+                Exception failure = failures.get(message);
+                if (failure != null) {
+                    (isPermanentRejection(failure) ? rejected : retry).add(serialize(message));
+                }
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+
+        synchronized (log) {
+            if (!rejected.isEmpty()) {
+                deadLetters.append(rejected);
+                deadLetterCounter.increment(rejected.size());
+                logger.warn("Moved {} rejected message(s) to the dead-letter spool", rejected.size());
+            }
+            if (!retry.isEmpty()) {
+                // appended before the commit: a crash in between resends, it never loses
+                log.append(retry);
+                logger.warn("Respooled {} message(s) that failed transiently", retry.size());
+            }
+            log.commit(entries.get(entries.size() - 1).next(), entries.size());
+        }
+        return retry.isEmpty();
+    }
+
+    /**
+     * A message the server refused with a 5xx reply or for invalid recipients will
+     * fail the same way on every retry; connection errors and 4xx replies may not.
+     */
+    static boolean isPermanentRejection(Exception failure) {
+        boolean sendFailed = false;
+        // "Invalid Addresses" wraps the per-recipient replies, so look for a reply code first
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SMTPSendFailedException smtp) {
+                return smtp.getReturnCode() >= 500;
+            }
+            if (cause instanceof SMTPAddressFailedException address) {
+                return address.getReturnCode() >= 500;
+            }
+            sendFailed |= cause instanceof SendFailedException;
+        }
+        return sendFailed;
+    }
+
+    private static byte[] serialize(MimeMessage message) {
+        try {
+            message.saveChanges();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+            message.writeTo(out);
+            return out.toByteArray();
+        } catch (MessagingException | IOException e) {
+            throw new MailPreparationException("Could not serialize message for the spool", e);
+        }
+    }
+}
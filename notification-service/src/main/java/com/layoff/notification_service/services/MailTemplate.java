@@ -0,0 +1,176 @@
+package com.layoff.notification_service.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mail template compiled once into a flat tree of segments.
+ *
+ * Syntax is a small Mustache subset: {@code {{name}}} (HTML-escaped in
+ * {@code .html} templates), {@code {{{name}}}} (never escaped), and {@code {{#name}}...{{/name}}} sections that repeat
+ * for each element of a list, render once for {@code true}, and are skipped for
+ * null, false or an empty list. Inside a section, names resolve against the
+ * element first and then the enclosing scopes. Adjacent static text is merged
+ * into one pre-built string at compile time, so rendering only appends those
+ * strings and the variable values.
+ */
+final class MailTemplate {
+
+    private sealed interface Segment permits Text, Variable, Section {}
+
+    private record Text(String value) implements Segment {}
+
+    private record Variable(String name, boolean escape) implements Segment {}
+
+    private record Section(String name, Segment[] body) implements Segment {}
+
+    private final String name;
+    private final Segment[] segments;
+    private final int sizeHint;
+
+    private MailTemplate(String name, Segment[] segments, int sizeHint) {
+        this.name = name;
+        this.segments = segments;
+        this.sizeHint = sizeHint;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /** Expected output size, used to presize render buffers. */
+    int sizeHint() {
+        return sizeHint;
+    }
+
+    static MailTemplate compile(String name, String source) {
+        boolean html = name.endsWith(".html");
+        List<Segment> root = new ArrayList<>();
+        List<List<Segment>> stack = new ArrayList<>();
+        List<String> open = new ArrayList<>();
+        List<Segment> current = root;
+        StringBuilder text = new StringBuilder();
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf("{{", position);
+            if (start < 0) {
+                text.append(source, position, source.length());
+                break;
+            }
+            text.append(source, position, start);
+            boolean raw = source.startsWith("{{{", start);
+            String close = raw ? "}}}" : "}}";
+            int end = source.indexOf(close, start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed tag at offset " + start + " in template " + name);
+            }
+            String tag = source.substring(start + (raw ? 3 : 2), end).trim();
+            position = end + close.length();
+
+            flush(text, current);
+            if (raw) {
+                current.add(new Variable(tag, false));
+            } else if (tag.startsWith("#")) {
+                stack.add(current);
+                open.add(tag.substring(1).trim());
+                current = new ArrayList<>();
+            } else if (tag.startsWith("/")) {
+                String closing = tag.substring(1).trim();
+                if (open.isEmpty() || !open.get(open.size() - 1).equals(closing)) {
+                    throw new IllegalArgumentException("Unexpected {{/" + closing + "}} in template " + name);
+                }
+                Segment[] body = current.toArray(new Segment[0]);
+                current = stack.remove(stack.size() - 1);
+                current.add(new Section(open.remove(open.size() - 1), body));
+            } else {
+                current.add(new Variable(tag, html));
+            }
+        }
+        if (!open.isEmpty()) {
+            throw new IllegalArgumentException("Unclosed section {{#" + open.get(open.size() - 1) + "}} in template " + name);
+        }
+        flush(text, current);
+        return new MailTemplate(name, root.toArray(new Segment[0]), source.length() + 256);
+    }
+
+    private static void flush(StringBuilder text, List<Segment> segments) {
+        if (!text.isEmpty()) {
+            segments.add(new Text(text.toString()));
+            text.setLength(0);
+        }
+    }
+
+    void render(Map<String, ?> model, StringBuilder out) {
+        List<Map<String, ?>> scopes = new ArrayList<>(4);
+        scopes.add(model);
+        render(segments, scopes, out);
+    }
+
+    private static void render(Segment[] segments, List<Map<String, ?>> scopes, StringBuilder out) {
+        for (Segment segment : segments) {
+            if (segment instanceof Text text) {
+                out.append(text.value());
+            } else if (segment instanceof Variable variable) {
+                Object value = lookup(scopes, variable.name());
+                if (value != null) {
+                    append(out, value, variable.escape());
+                }
+            } else if (segment instanceof Section section) {
+                Object value = lookup(scopes, section.name());
+                if (value instanceof List<?> list) {
+                    for (Object element : list) {
+                        renderScoped(section.body(), scopes, element, out);
+                    }
+                } else if (value instanceof Map<?, ?> || Boolean.TRUE.equals(value)) {
+                    renderScoped(section.body(), scopes, value, out);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void renderScoped(Segment[] body, List<Map<String, ?>> scopes, Object element, StringBuilder out) {
+        if (element instanceof Map<?, ?> map) {
+            scopes.add((Map<String, ?>) map);
+            try {
+                render(body, scopes, out);
+            } finally {
+                scopes.remove(scopes.size() - 1);
+            }
+        } else {
+            render(body, scopes, out);
+        }
+    }
+
+    private static Object lookup(List<Map<String, ?>> scopes, String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Map<String, ?> scope = scopes.get(i);
+            Object value = scope.get(name);
+            if (value != null || scope.containsKey(name)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static void append(StringBuilder out, Object value, boolean escape) {
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (!escape) {
+            out.append(text);
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
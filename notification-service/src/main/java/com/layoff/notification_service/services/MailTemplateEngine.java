@@ -0,0 +1,126 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of compiled {@link MailTemplate}s.
+ *
+ * Every {@code *.html} and {@code *.txt} file under {@code notification.templates.location}
+ * is compiled once at startup and looked up by file name. Every
+ * {@code notification.templates.check-ms} the files are checked for a newer
+ * modification time and recompiled, so templates on a file-system location can be
+ * edited without a restart; a template that no longer compiles keeps its last good
+ * version. Rendering appends into a per-thread buffer that is reused between
+ * renders, and each template's render time is recorded under
+ * {@code notification.template.render}.
+ */
+@Component
+public class MailTemplateEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailTemplateEngine.class);
+
+    /** Buffers that grew past this are dropped instead of being kept for the thread. */
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private record Loaded(MailTemplate template, long lastModified, Timer renderTimer) {}
+
+    private final MeterRegistry meterRegistry;
+    private final String location;
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    private final Map<String, Loaded> templates = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    public MailTemplateEngine(MeterRegistry meterRegistry,
+                              @Value("${notification.templates.location:classpath:mail-templates/}") String location) {
+        this.meterRegistry = meterRegistry;
+        this.location = location.endsWith("/") ? location : location + "/";
+        reloadChanged();
+        if (templates.isEmpty()) {
+            throw new IllegalStateException("No mail templates found under " + this.location);
+        }
+    }
+
+    public String render(String name, Map<String, ?> model) {
+        Loaded loaded = templates.get(name);
+        if (loaded == null) {
+            throw new IllegalArgumentException("Unknown mail template " + name);
+        }
+        long start = System.nanoTime();
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(loaded.template().sizeHint());
+        try {
+            loaded.template().render(model, buffer);
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                buffers.remove();
+            }
+            loaded.renderTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${notification.templates.check-ms:5000}",
+            fixedDelayString = "${notification.templates.check-ms:5000}")
+    public void reloadChanged() {
+        Resource[] resources;
+        try {
+            resources = resolver.getResources(location + "*.{html,txt}");
+        } catch (IOException e) {
+            logger.warn("Could not list mail templates under {}: {}", location, e.getMessage());
+            return;
+        }
+        for (Resource resource : resources) {
+            String name = resource.getFilename();
+            if (name == null) {
+                continue;
+            }
+            long lastModified = lastModified(resource);
+            Loaded current = templates.get(name);
+            if (current != null && current.lastModified() == lastModified) {
+                continue;
+            }
+            try {
+                String source = resource.getContentAsString(StandardCharsets.UTF_8);
+                MailTemplate template = MailTemplate.compile(name, source);
+                Timer timer = current != null ? current.renderTimer() : Timer.builder("notification.template.render")
+                        .description("Time to render one mail template")
+                        .tag("template", name)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry);
+                templates.put(name, new Loaded(template, lastModified, timer));
+                logger.info("{} mail template {}", current == null ? "Compiled" : "Recompiled", name);
+            } catch (IOException | IllegalArgumentException e) {
+                if (current == null) {
+                    throw e instanceof IOException io ? new UncheckedIOException(io) : (IllegalArgumentException) e;
+                }
+                logger.warn("Keeping previous version of mail template {}: {}", name, e.getMessage());
+                // remember the broken revision so it is not retried until the file changes again
+                templates.put(name, new Loaded(current.template(), lastModified, current.renderTimer()));
+            }
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.layoff.notification_service.services;
+
+import com.layoff.notification_service.dtos.OrderCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers order events per recipient and sends one digest per recipient instead of
+ * one email per order.
+ *
+ * A recipient's buffer is flushed once its oldest event is
+ * {@code notification.coalesce.window-ms} old or it holds
+ * {@code notification.coalesce.max-events}. At most
+ * {@code notification.coalesce.max-buffered-events} events are held in total; past
+ * that the oldest buffers are flushed early and the consumer waits for room.
+ * A Kafka batch is acknowledged only when every event in it has gone out in a
+ * digest (handed to the {@link MailSpool}), so a crash replays anything that was
+ * still buffered. Events are marked sent in the {@link NotificationDedupeStore} as
+ * their digest is handed off. The events of a digest that cannot be rendered are
+ * sent to {@link OrderEventDeadLetters} and then count as handled for their batch.
+ */
+@Service
+public class NotificationCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCoalescer.class);
+
+    /** Acknowledges a consumed batch once all of its events have been sent. */
+    private static final class BatchAck {
+        private final Acknowledgment acknowledgment;
+        private final AtomicInteger remaining;
+
+        private BatchAck(Acknowledgment acknowledgment, int events) {
+            this.acknowledgment = acknowledgment;
+            this.remaining = new AtomicInteger(events);
+        }
+
+        private void eventSent() {
+            if (remaining.decrementAndGet() == 0 && acknowledgment != null) {
+                acknowledgment.acknowledge();
+            }
+        }
+    }
+
+    private record Pending(OrderCreatedEvent event, BatchAck batch) {}
+
+    private record Digest(String recipient, List<Pending> pending) {}
+
+    private static final class Buffer {
+        private final List<Pending> pending = new ArrayList<>();
+        private long firstAddedMillis;
+    }
+
+    private final OrderMailComposer composer;
+    private final MailSpool mailSpool;
+    private final NotificationDedupeStore dedupeStore;
+    private final OrderEventDeadLetters deadLetters;
+    private final long windowMs;
+    private final int maxEventsPerRecipient;
+    private final int maxBufferedEvents;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition spaceAvailable = lock.newCondition();
+    private final Map<String, Buffer> buffers = new HashMap<>();
+    private int bufferedEvents;
+
+    private final Counter digestCounter;
+    private final DistributionSummary digestSize;
+
+    public NotificationCoalescer(OrderMailComposer composer,
+                                 MailSpool mailSpool,
+                                 NotificationDedupeStore dedupeStore,
+                                 OrderEventDeadLetters deadLetters,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notification.coalesce.window-ms:10000}") long windowMs,
+                                 @Value("${notification.coalesce.max-events:50}") int maxEventsPerRecipient,
+                                 @Value("${notification.coalesce.max-buffered-events:10000}") int maxBufferedEvents) {
+        this.composer = composer;
+        this.mailSpool = mailSpool;
+        this.dedupeStore = dedupeStore;
+        this.deadLetters = deadLetters;
+        this.windowMs = windowMs;
+        this.maxEventsPerRecipient = maxEventsPerRecipient;
+        this.maxBufferedEvents = maxBufferedEvents;
+        this.digestCounter = Counter.builder("notification.coalesce.digests").register(meterRegistry);
+        this.digestSize = DistributionSummary.builder("notification.coalesce.digest.size")
+                .description("Orders summarized per digest email")
+                .register(meterRegistry);
+        Gauge.builder("notification.coalesce.buffered", this, NotificationCoalescer::bufferedEvents)
+                .register(meterRegistry);
+    }
+
+    public int bufferedEvents() {
+        lock.lock();
+        try {
+            return bufferedEvents;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Buffers a consumed batch; {@code acknowledgment} (may be null) is called once
+     * all of its events have been sent.
+     */
+    public void add(List<OrderCreatedEvent> events, Acknowledgment acknowledgment) throws InterruptedException {
+        if (events.isEmpty()) {
+            if (acknowledgment != null) {
+                acknowledgment.acknowledge();
+            }
+            return;
+        }
+        BatchAck batch = new BatchAck(acknowledgment, events.size());
+        List<Digest> full = new ArrayList<>();
+        lock.lock();
+        try {
+            while (bufferedEvents + events.size() > maxBufferedEvents && bufferedEvents > 0) {
+                // make room by sending the oldest buffers now, then wait for them to go out
+                full.addAll(takeOldest(events.size()));
+                if (!full.isEmpty()) {
+                    break;
+                }
+                spaceAvailable.await();
+            }
+            long now = System.currentTimeMillis();
+            for (OrderCreatedEvent event : events) {
+                String recipient = composer.recipientFor(event);
+                Buffer buffer = buffers.computeIfAbsent(recipient, key -> new Buffer());
+                if (buffer.pending.isEmpty()) {
+                    buffer.firstAddedMillis = now;
+                }
+                buffer.pending.add(new Pending(event, batch));
+                bufferedEvents++;
+                if (buffer.pending.size() >= maxEventsPerRecipient) {
+                    full.add(take(recipient));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(full);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.coalesce.flush-check-ms:500}")
+    public void flushDue() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        List<Digest> due = new ArrayList<>();
+        lock.lock();
+        try {
+            List<String> expired = buffers.entrySet().stream()
+                    .filter(entry -> entry.getValue().firstAddedMillis <= cutoff)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            for (String recipient : expired) {
+                due.add(take(recipient));
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(due);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        List<Digest> all = new ArrayList<>();
+        lock.lock();
+        try {
+            for (String recipient : List.copyOf(buffers.keySet())) {
+                all.add(take(recipient));
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(all);
+    }
+
+    /** Removes a recipient's buffer; caller holds the lock. */
+    private Digest take(String recipient) {
+        Buffer buffer = buffers.remove(recipient);
+        return new Digest(recipient, buffer == null ? List.of() : buffer.pending);
+    }
+
+    /** Takes the oldest buffers until at least {@code events} slots are free; caller holds the lock. */
+    private List<Digest> takeOldest(int events) {
+        List<Digest> taken = new ArrayList<>();
+        List<String> oldestFirst = buffers.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().firstAddedMillis))
+                .map(Map.Entry::getKey)
+                .toList();
+        int freed = 0;
+        for (String recipient : oldestFirst) {
+            if (bufferedEvents - freed + events <= maxBufferedEvents) {
+                break;
+            }
+            Digest digest = take(recipient);
+            freed += digest.pending().size();
+            taken.add(digest);
+        }
+        return taken;
+    }
+
+    private void send(List<Digest> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        List<Digest> digests = new ArrayList<>(due.size());
+        List<MimeMessage> messages = new ArrayList<>(due.size());
+        List<Digest> unparked = new ArrayList<>();
+        int dropped = 0;
+        for (Digest digest : due) {
+            try {
+                messages.add(composer.orderDigest(digest.recipient(),
+                        digest.pending().stream().map(Pending::event).toList()));
+                digests.add(digest);
+            } catch (RuntimeException e) {
+                // rendering will fail the same way again: park the events and acknowledge them,
+                // so one bad event does not hold back the offsets behind it
+                logger.error("Could not render the digest for {}, dead-lettering {} event(s): {}",
+                        digest.recipient(), digest.pending().size(), e.getMessage(), e);
+                if (deadLetters.publish(digest.pending().stream().map(Pending::event).toList())) {
+                    dedupeStore.release(digest.pending().stream().map(item -> OrderNotificationService.key(item.event())).toList());
+                    digest.pending().forEach(item -> item.batch().eventSent());
+                    dropped += digest.pending().size();
+                } else {
+                    unparked.add(digest);
+                }
+            }
+        }
+        if (!unparked.isEmpty()) {
+            // keep them buffered and unacknowledged until the dead-letter topic is reachable
+            requeue(unparked);
+        }
+
+        boolean[] failedFlags = new boolean[digests.size()];
+        try {
+            if (!messages.isEmpty()) {
+                mailSpool.send(messages);
+            }
+        } catch (MailSendException e) {
+            for (int i = 0; i < messages.size(); i++) {
+                failedFlags[i] = e.getFailedMessages().containsKey(messages.get(i));
+            }
+        } catch (RuntimeException e) {
+            Arrays.fill(failedFlags, true);
+        }
+        List<Digest> failed = new ArrayList<>();
+        for (int i = 0; i < digests.size(); i++) {
+            if (failedFlags[i]) {
+                failed.add(digests.get(i));
+            }
+        }
+        if (!failed.isEmpty()) {
+            // keep these buffered, and their batches unacknowledged, for a later flush
+            logger.warn("Failed to send {} of {} digest(s), retrying after the coalescing window",
+                    failed.size(), digests.size());
+            requeue(failed);
+        }
+
+        int sent = 0;
+        for (int i = 0; i < digests.size(); i++) {
+            if (failedFlags[i]) {
+                continue;
+            }
+            Digest digest = digests.get(i);
+            dedupeStore.sent(digest.pending().stream().map(item -> OrderNotificationService.key(item.event())).toList());
+            digestSize.record(digest.pending().size());
+            digest.pending().forEach(item -> item.batch().eventSent());
+            digestCounter.increment();
+            sent += digest.pending().size();
+        }
+        release(sent + dropped);
+    }
+
+    private void requeue(List<Digest> digests) {
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (Digest digest : digests) {
+                Buffer buffer = buffers.computeIfAbsent(digest.recipient(), key -> new Buffer());
+                buffer.pending.addAll(0, digest.pending());
+                // due again one window from now rather than on the very next tick
+                buffer.firstAddedMillis = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(int events) {
+        lock.lock();
+        try {
+            bufferedEvents -= events;
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which notifications have already been handed off, so Kafka redeliveries
+ * and topic replays do not email a customer twice.
+ *
+ * Keys are a notification type plus an order id. A key is first {@link #claim claimed}
+ * when its event is consumed (which also drops duplicates within one batch) and
+ * becomes {@link #sent} once its message is spooled or delivered; a failed send
+ * {@link #release releases} it again. Sent keys are kept in an exact map for
+ * {@code notification.dedupe.exact-window-ms} and in a {@link RotatingBloomFilter}
+ * that rotates every {@code notification.dedupe.window-ms}, so lookups are O(1) and
+ * memory is bounded no matter how much is replayed. A Bloom hit past the exact
+ * window counts as already sent, so an unseen key is skipped with probability
+ * {@code notification.dedupe.false-positive-rate}.
+ * Sent keys are also appended to a small local {@link SegmentLog} that is replayed
+ * on startup and trimmed to two windows, so a restart does not forget them.
+ */
+@Component
+public class NotificationDedupeStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDedupeStore.class);
+
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+
+    private static final long SEGMENT_BYTES = 8L * 1024 * 1024;
+    private static final int REPLAY_BATCH = 10_000;
+
+    private final boolean enabled;
+    private final long windowMs;
+    private final long exactWindowMs;
+    private final RotatingBloomFilter sentKeys;
+    private final Map<String, Long> recentlySent = new ConcurrentHashMap<>();
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    private final SegmentLog log;
+    private final Counter duplicateCounter;
+
+    private volatile long generationStartedMillis = System.currentTimeMillis();
+
+    public NotificationDedupeStore(MeterRegistry meterRegistry,
+                                   @Value("${notification.dedupe.enabled:true}") boolean enabled,
+                                   @Value("${notification.dedupe.dir:${java.io.tmpdir}/notification-service/dedupe}") String directory,
+                                   @Value("${notification.dedupe.window-ms:86400000}") long windowMs,
+                                   @Value("${notification.dedupe.exact-window-ms:3600000}") long exactWindowMs,
+                                   @Value("${notification.dedupe.expected-keys:1000000}") long expectedKeys,
+                                   @Value("${notification.dedupe.false-positive-rate:0.000001}") double falsePositiveRate,
+                                   @Value("${notification.dedupe.fsync:true}") boolean fsync) {
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.exactWindowMs = exactWindowMs;
+        this.sentKeys = enabled ? new RotatingBloomFilter(expectedKeys, falsePositiveRate) : null;
+        try {
+            this.log = enabled ? new SegmentLog(Path.of(directory), SEGMENT_BYTES, fsync) : null;
+            if (enabled) {
+                replay();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open notification dedupe store in " + directory, e);
+        }
+        this.duplicateCounter = Counter.builder("notification.dedupe.skipped")
+                .description("Notifications skipped because they were already sent")
+                .register(meterRegistry);
+        Gauge.builder("notification.dedupe.recent", recentlySent, Map::size).register(meterRegistry);
+        Gauge.builder("notification.dedupe.claimed", claimed, Set::size).register(meterRegistry);
+    }
+
+    public static String key(String type, Long orderId) {
+        return type + ':' + orderId;
+    }
+
+    /**
+     * Returns true if the caller should send this notification; false if it was
+     * already sent or is being sent right now.
+     */
+    public boolean claim(String key) {
+        if (!enabled) {
+            return true;
+        }
+        if (recentlySent.containsKey(key) || sentKeys.mightContain(key) || !claimed.add(key)) {
+            duplicateCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /** Records claimed keys as sent, once their messages have been spooled or delivered. */
+    public void sent(Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<byte[]> records = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            records.add(ByteBuffer.allocate(Long.BYTES + bytes.length).putLong(now).put(bytes).array());
+            recentlySent.put(key, now);
+            sentKeys.add(key);
+        }
+        claimed.removeAll(keys);
+        synchronized (log) {
+            try {
+                log.append(records);
+            } catch (IOException e) {
+                // still deduplicated in memory; only a restart would forget these
+                logger.warn("Could not persist {} sent notification key(s): {}", records.size(), e.getMessage());
+            }
+        }
+    }
+
+    /** Gives up claims whose messages could not be sent, so a redelivery sends them. */
+    public void release(Collection<String> keys) {
+        if (enabled) {
+            claimed.removeAll(keys);
+        }
+    }
+
+    /** Expires the exact window, rotates the Bloom filter and trims the persisted keys. */
+    @Scheduled(fixedDelayString = "${notification.dedupe.maintenance-ms:60000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        recentlySent.values().removeIf(sentAt -> sentAt < now - exactWindowMs);
+        if (now - generationStartedMillis >= windowMs) {
+            sentKeys.rotate();
+            generationStartedMillis = now;
+        }
+        synchronized (log) {
+            try {
+                trim(now - 2 * windowMs);
+            } catch (IOException e) {
+                logger.warn("Could not trim notification dedupe store: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (log != null) {
+            synchronized (log) {
+                log.close();
+            }
+        }
+    }
+
+    private void replay() throws IOException {
+        long now = System.currentTimeMillis();
+        long loaded = 0;
+        SegmentLog.Position position = log.cursor();
+        List<SegmentLog.Entry> entries;
+        do {
+            entries = log.read(position, REPLAY_BATCH);
+            for (SegmentLog.Entry entry : entries) {
+                ByteBuffer record = ByteBuffer.wrap(entry.payload());
+                long sentAt = record.getLong();
+                String key = new String(entry.payload(), Long.BYTES, record.remaining(), StandardCharsets.UTF_8);
+                if (sentAt >= now - windowMs) {
+                    sentKeys.add(key);
+                } else if (sentAt >= now - 2 * windowMs) {
+                    sentKeys.addToPrevious(key);
+                } else {
+                    continue;
+                }
+                if (sentAt >= now - exactWindowMs) {
+                    recentlySent.put(key, sentAt);
+                }
+                loaded++;
+            }
+            if (!entries.isEmpty()) {
+                position = entries.get(entries.size() - 1).next();
+            }
+        } while (entries.size() == REPLAY_BATCH);
+        trim(now - 2 * windowMs);
+        logger.info("Loaded {} sent notification key(s) in {} ms", loaded, System.currentTimeMillis() - now);
+    }
+
+    /** Moves the cursor past keys sent before {@code cutoff}; keys are appended in time order. */
+    private void trim(long cutoff) throws IOException {
+        SegmentLog.Position position = log.cursor();
+        int expired = 0;
+        List<SegmentLog.Entry> entries;
+        do {
+            entries = log.read(position, REPLAY_BATCH);
+            for (SegmentLog.Entry entry : entries) {
+                if (ByteBuffer.wrap(entry.payload()).getLong() >= cutoff) {
+                    if (expired > 0) {
+                        log.commit(position, expired);
+                    }
+                    return;
+                }
+                position = entry.next();
+                expired++;
+            }
+        } while (entries.size() == REPLAY_BATCH);
+        if (expired > 0) {
+            log.commit(position, expired);
+        }
+    }
+}
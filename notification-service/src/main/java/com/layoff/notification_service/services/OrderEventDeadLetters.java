@@ -0,0 +1,44 @@
+package com.layoff.notification_service.services;
+
+import com.layoff.notification_service.dtos.OrderCreatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Parks order events that can never be turned into an email on a dead-letter topic,
+ * so their Kafka batch can be acknowledged without losing them. The destination is
+ * the {@code orderDeadLetters-out-0} binding.
+ */
+@Component
+public class OrderEventDeadLetters {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventDeadLetters.class);
+
+    private static final String BINDING = "orderDeadLetters-out-0";
+
+    private final StreamBridge streamBridge;
+
+    public OrderEventDeadLetters(StreamBridge streamBridge) {
+        this.streamBridge = streamBridge;
+    }
+
+    /** @return whether every event was handed to the binder */
+    public boolean publish(List<OrderCreatedEvent> events) {
+        for (OrderCreatedEvent event : events) {
+            try {
+                if (!streamBridge.send(BINDING, event)) {
+                    logger.error("Failed to dead-letter order {}", event.orderId());
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to dead-letter order {}: {}", event.orderId(), e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package com.layoff.notification_service.services;
+
+import com.layoff.notification_service.dtos.OrderCreatedEvent;
+import com.layoff.notification_service.dtos.OrderItemDTO;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns order events into ready-to-send MIME messages, with an HTML body and a
+ * plain-text alternative rendered from the templates in {@link MailTemplateEngine}.
+ */
+@Component
+public class OrderMailComposer {
+
+    static final String ORDER_CREATED = "order-created";
+    static final String ORDER_DIGEST = "order-digest";
+
+    private final JavaMailSender mailSender;
+    private final MailTemplateEngine templates;
+    private final UserDirectory userDirectory;
+    private final String from;
+    private final String to;
+
+    public OrderMailComposer(JavaMailSender mailSender,
+                             MailTemplateEngine templates,
+                             UserDirectory userDirectory,
+                             @Value("${notification.mail.from:orders@commercial-site.local}") String from,
+                             @Value("${notification.mail.to:}") String to) {
+        this.mailSender = mailSender;
+        this.templates = templates;
+        this.userDirectory = userDirectory;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * The address notifications about this event go to: the ordering user's email,
+     * or {@code notification.mail.to} while the user is not in the directory.
+     *
+     * @return null when the user is unknown and no fallback address is configured
+     */
+    public String recipientFor(OrderCreatedEvent event) {
+        UserDirectory.Recipient recipient = userDirectory.find(event.userId());
+        if (recipient != null) {
+            return recipient.email();
+        }
+        return to.isBlank() ? null : to;
+    }
+
+    public MimeMessage orderCreated(OrderCreatedEvent event) {
+        Map<String, Object> model = orderModel(event);
+        List<Map<String, Object>> items = new ArrayList<>(event.items().size());
+        for (OrderItemDTO item : event.items()) {
+            Map<String, Object> row = new HashMap<>(4);
+            row.put("productId", item.productId());
+            row.put("quantity", item.quantity());
+            items.add(row);
+        }
+        model.put("items", items);
+        model.put("customerName", customerName(event.userId()));
+        return message(recipientFor(event), "Order Created: #" + event.orderId(), ORDER_CREATED, model);
+    }
+
+    /** One message summarizing several orders for the same recipient. */
+    public MimeMessage orderDigest(String recipient, List<OrderCreatedEvent> events) {
+        if (events.size() == 1) {
+            return orderCreated(events.get(0));
+        }
+        List<Map<String, Object>> orders = new ArrayList<>(events.size());
+        for (OrderCreatedEvent event : events) {
+            orders.add(orderModel(event));
+        }
+        Map<String, Object> model = Map.of("orderCount", events.size(), "orders", orders,
+                "customerName", customerName(events.get(0).userId()));
+        return message(recipient, events.size() + " Orders Created", ORDER_DIGEST, model);
+    }
+
+    private String customerName(String userId) {
+        UserDirectory.Recipient recipient = userDirectory.find(userId);
+        return recipient == null || recipient.name().isEmpty() ? "customer" : recipient.name();
+    }
+
+    private static Map<String, Object> orderModel(OrderCreatedEvent event) {
+        // HashMap rather than Map.of: any of the event fields may be null
+        Map<String, Object> model = new HashMap<>(16);
+        model.put("orderId", event.orderId());
+        model.put("userId", event.userId());
+        model.put("status", event.status());
+        model.put("totalAmount", event.totalAmount());
+        model.put("createdAt", event.createdAt());
+        model.put("itemCount", event.items().size());
+        return model;
+    }
+
+    private MimeMessage message(String recipient, String subject, String template, Map<String, ?> model) {
+        String text = templates.render(template + ".txt", model);
+        String html = templates.render(template + ".html", model);
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setFrom(from);
+            helper.setTo(recipient);
+            helper.setSubject(subject);
+            helper.setText(text, html);
+            return message;
+        } catch (MessagingException e) {
+            throw new MailPreparationException(e);
+        }
+    }
+}
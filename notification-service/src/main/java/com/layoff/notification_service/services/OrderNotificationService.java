@@ -0,0 +1,106 @@
+package com.layoff.notification_service.services;
+
+import com.layoff.notification_service.dtos.OrderCreatedEvent;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point for consumed order events: drops those already notified about or
+ * whose user has no known email address, then either coalesces the rest into
+ * per-recipient digests or sends one email per order right away.
+ */
+@Service
+public class OrderNotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNotificationService.class);
+
+    private final OrderMailComposer composer;
+    private final MailSpool mailSpool;
+    private final NotificationCoalescer coalescer;
+    private final NotificationDedupeStore dedupeStore;
+    private final boolean coalesce;
+
+    public OrderNotificationService(OrderMailComposer composer,
+                                    MailSpool mailSpool,
+                                    NotificationCoalescer coalescer,
+                                    NotificationDedupeStore dedupeStore,
+                                    @Value("${notification.coalesce.enabled:false}") boolean coalesce) {
+        this.composer = composer;
+        this.mailSpool = mailSpool;
+        this.coalescer = coalescer;
+        this.dedupeStore = dedupeStore;
+        this.coalesce = coalesce;
+    }
+
+    /**
+     * Handles a consumed batch. {@code acknowledgment} is null when the container
+     * commits offsets itself; it is only acknowledged once the batch has been spooled or sent.
+     */
+    public void handle(List<OrderCreatedEvent> events, Acknowledgment acknowledgment) {
+        List<OrderCreatedEvent> unsent = new ArrayList<>(events.size());
+        for (OrderCreatedEvent event : events) {
+            if (composer.recipientFor(event) == null) {
+                logger.warn("No email address known for user {}, skipping notification for order {}",
+                        event.userId(), event.orderId());
+            } else if (dedupeStore.claim(key(event))) {
+                unsent.add(event);
+            }
+        }
+        if (coalesce) {
+            try {
+                coalescer.add(unsent, acknowledgment);
+            } catch (InterruptedException e) {
+                dedupeStore.release(unsent.stream().map(OrderNotificationService::key).toList());
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for coalescing buffer space", e);
+            } catch (RuntimeException e) {
+                dedupeStore.release(unsent.stream().map(OrderNotificationService::key).toList());
+                throw e;
+            }
+            return;
+        }
+        send(unsent);
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    static String key(OrderCreatedEvent event) {
+        return NotificationDedupeStore.key(NotificationDedupeStore.ORDER_CREATED, event.orderId());
+    }
+
+    private void send(List<OrderCreatedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<String> keys = events.stream().map(OrderNotificationService::key).toList();
+        List<MimeMessage> messages = new ArrayList<>(events.size());
+        try {
+            for (OrderCreatedEvent event : events) {
+                messages.add(composer.orderCreated(event));
+            }
+            mailSpool.send(messages);
+        } catch (MailSendException e) {
+            List<String> sent = new ArrayList<>(keys.size());
+            List<String> failed = new ArrayList<>();
+            for (int i = 0; i < messages.size(); i++) {
+                (e.getFailedMessages().containsKey(messages.get(i)) ? failed : sent).add(keys.get(i));
+            }
+            dedupeStore.sent(sent);
+            dedupeStore.release(failed);
+            throw e;
+        } catch (RuntimeException e) {
+            dedupeStore.release(keys);
+            throw e;
+        }
+        dedupeStore.sent(keys);
+    }
+}
@@ -0,0 +1,114 @@
+package com.layoff.notification_service.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-bounded, thread-safe Bloom filter made of two generations.
+ *
+ * Keys are added to the current generation and looked up in both; {@link #rotate}
+ * drops the previous generation and starts an empty current one, so a key is
+ * remembered for between one and two rotation periods. Each generation is sized
+ * from the keys expected per period and the target false-positive rate, and the k
+ * bit positions come from double hashing one 64-bit hash. Bits are only ever set,
+ * so adds and lookups need no locking.
+ */
+final class RotatingBloomFilter {
+
+    private static final class Generation {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        private Generation(long expectedKeys, double falsePositiveRate) {
+            long keys = Math.max(1, expectedKeys);
+            long bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, (bits + 63) / 64 * 64);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact(bitCount / 64));
+        }
+
+        private void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                long current;
+                while (((current = words.get(word)) & mask) == 0) {
+                    if (words.compareAndSet(word, current, current | mask)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long index(int combined) {
+            return (combined & 0x7fffffffL) % bitCount;
+        }
+    }
+
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    RotatingBloomFilter(long expectedKeysPerGeneration, double falsePositiveRate) {
+        this.expectedKeys = expectedKeysPerGeneration;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new Generation(expectedKeys, falsePositiveRate);
+        this.previous = new Generation(expectedKeys, falsePositiveRate);
+    }
+
+    void add(String key) {
+        current.add(hash(key));
+    }
+
+    /** Adds to the previous generation; used when reloading keys that are already one period old. */
+    void addToPrevious(String key) {
+        previous.add(hash(key));
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        return current.mightContain(hash) || previous.mightContain(hash);
+    }
+
+    synchronized void rotate() {
+        previous = current;
+        current = new Generation(expectedKeys, falsePositiveRate);
+    }
+
+    /** Bytes held by both generations' bit arrays. */
+    long sizeInBytes() {
+        return (current.bitCount + previous.bitCount) / 8;
+    }
+
+    /** FNV-1a over the key's chars, finished with the MurmurHash3 64-bit mixer. */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,262 @@
+package com.layoff.notification_service.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log split into segment files, with one persisted read cursor.
+ *
+ * Segment {@code n} lives in {@code <n>.seg} and starts with a magic/format header;
+ * each record is its length, a CRC32 of the payload and the payload. Appends go
+ * through a {@link FileChannel} and are forced to disk before {@link #append}
+ * returns (when {@code fsync} is on). The cursor is written to a temp file and
+ * moved into place, and segments wholly behind it are deleted. On open, a torn
+ * record at the end of the last segment (a crash mid-append) is truncated away.
+ * Not thread-safe on its own; callers synchronize.
+ */
+final class SegmentLog implements Closeable {
+
+    private static final int MAGIC = 0x4D53504C; // "MSPL"
+    private static final int FORMAT = 1;
+    private static final int SEGMENT_HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    private static final String SUFFIX = ".seg";
+    private static final String CURSOR = "cursor";
+
+    record Position(long segment, long offset) {}
+
+    record Entry(byte[] payload, Position next) {}
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final TreeMap<Long, FileChannel> segments = new TreeMap<>();
+
+    private Position cursor;
+    private long pending;
+
+    SegmentLog(Path directory, long segmentBytes, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long id = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                segments.put(id, FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+        }
+        truncateTornTail();
+        cursor = readCursor();
+        pending = countFrom(cursor);
+    }
+
+    /** Records appended but not yet behind the cursor. */
+    long pending() {
+        return pending;
+    }
+
+    void append(List<byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        FileChannel tail = segments.lastEntry().getValue();
+        for (byte[] record : records) {
+            if (tail.size() > SEGMENT_HEADER && tail.size() + RECORD_HEADER + record.length > segmentBytes) {
+                force(tail);
+                tail = openSegment(segments.lastKey() + 1);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER).putInt(record.length).putInt((int) crc.getValue()).flip();
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(record)};
+            while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                tail.write(buffers);
+            }
+        }
+        force(tail);
+        pending += records.size();
+    }
+
+    Position cursor() {
+        return cursor;
+    }
+
+    /** Reads up to {@code max} records from the cursor without moving it. */
+    List<Entry> read(int max) throws IOException {
+        return read(cursor, max);
+    }
+
+    /** Reads up to {@code max} records starting at {@code from}, a position returned by an earlier read. */
+    List<Entry> read(Position from, int max) throws IOException {
+        List<Entry> entries = new ArrayList<>(Math.min(max, 256));
+        Position position = from;
+        while (entries.size() < max) {
+            FileChannel segment = segments.get(position.segment());
+            if (segment == null) {
+                break;
+            }
+            if (position.offset() >= segment.size()) {
+                Long next = segments.higherKey(position.segment());
+                if (next == null) {
+                    break;
+                }
+                position = new Position(next, SEGMENT_HEADER);
+                continue;
+            }
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            readFully(segment, header, position.offset());
+            header.flip();
+            byte[] payload = new byte[header.getInt()];
+            readFully(segment, ByteBuffer.wrap(payload), position.offset() + RECORD_HEADER);
+            position = new Position(position.segment(), position.offset() + RECORD_HEADER + payload.length);
+            entries.add(new Entry(payload, position));
+        }
+        return entries;
+    }
+
+    /** Moves the cursor past consumed records and deletes segments it has left behind. */
+    void commit(Position next, int consumed) throws IOException {
+        Path temp = directory.resolve(CURSOR + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(16).putLong(next.segment()).putLong(next.offset()).flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(buffer);
+            force(channel);
+        }
+        Files.move(temp, directory.resolve(CURSOR), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        cursor = next;
+        pending -= consumed;
+
+        while (segments.firstKey() < next.segment()) {
+            long id = segments.firstKey();
+            segments.remove(id).close();
+            Files.deleteIfExists(segmentPath(id));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : segments.values()) {
+            channel.close();
+        }
+        segments.clear();
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.allocate(SEGMENT_HEADER).putInt(MAGIC).putInt(FORMAT).flip());
+        channel.position(channel.size());
+        segments.put(id, channel);
+        return channel;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SUFFIX));
+    }
+
+    /** Validates the last segment record by record and cuts it after the last intact one. */
+    private void truncateTornTail() throws IOException {
+        FileChannel tail = segments.lastEntry().getValue();
+        ByteBuffer segmentHeader = ByteBuffer.allocate(SEGMENT_HEADER);
+        if (tail.size() < SEGMENT_HEADER || !readIfAvailable(tail, segmentHeader, 0)
+                || segmentHeader.flip().getInt() != MAGIC || segmentHeader.getInt() != FORMAT) {
+            throw new IOException("Spool segment " + segmentPath(segments.lastKey()) + " has an unknown format");
+        }
+        long offset = SEGMENT_HEADER;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        while (offset < tail.size()) {
+            header.clear();
+            if (!readIfAvailable(tail, header, offset)) {
+                break;
+            }
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || offset + RECORD_HEADER + length > tail.size()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            readFully(tail, ByteBuffer.wrap(payload), offset + RECORD_HEADER);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            offset += RECORD_HEADER + length;
+        }
+        if (offset < tail.size()) {
+            tail.truncate(offset);
+            force(tail);
+        }
+        tail.position(tail.size());
+    }
+
+    private Position readCursor() throws IOException {
+        Path file = directory.resolve(CURSOR);
+        if (Files.exists(file)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            Position saved = new Position(buffer.getLong(), buffer.getLong());
+            if (segments.containsKey(saved.segment())) {
+                return saved;
+            }
+        }
+        return new Position(segments.firstKey(), SEGMENT_HEADER);
+    }
+
+    private long countFrom(Position from) throws IOException {
+        long count = 0;
+        List<Entry> batch;
+        Position saved = cursor;
+        cursor = from;
+        try {
+            while (!(batch = read(1024)).isEmpty()) {
+                count += batch.size();
+                cursor = batch.get(batch.size() - 1).next();
+            }
+        } finally {
+            cursor = saved;
+        }
+        return count;
+    }
+
+    private void force(FileChannel channel) throws IOException {
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        if (!readIfAvailable(channel, buffer, position)) {
+            throw new IOException("Unexpected end of spool segment");
+        }
+    }
+
+    private static boolean readIfAvailable(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        return true;
+    }
+}
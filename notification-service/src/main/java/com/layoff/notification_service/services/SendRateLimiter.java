@@ -0,0 +1,133 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps outgoing mail within the provider's send rates.
+ *
+ * Every message takes one token from a global {@link TokenBucket}
+ * ({@code notification.rate.global-per-second}) and one from the bucket of its
+ * first recipient's domain ({@code notification.rate.domain-per-second}); a rate
+ * of 0 disables that limit. {@link #acquire} blocks the calling thread until the
+ * whole batch is admitted, which is the spool's sender thread, never a Kafka
+ * consumer, as long as the spool is enabled. Domain buckets that have refilled
+ * are dropped periodically so the map only holds recently used domains.
+ */
+@Component
+public class SendRateLimiter {
+
+    private static final String GLOBAL = "global";
+    private static final String DOMAIN = "domain";
+
+    private final double domainPerSecond;
+    private final double burstSeconds;
+    private final TokenBucket global;
+    private final Map<String, TokenBucket> domains = new HashMap<>();
+    private final Counter globalThrottled;
+    private final Counter domainThrottled;
+    private final Timer waitTimer;
+
+    public SendRateLimiter(MeterRegistry meterRegistry,
+                           @Value("${notification.rate.global-per-second:0}") double globalPerSecond,
+                           @Value("${notification.rate.domain-per-second:0}") double domainPerSecond,
+                           @Value("${notification.rate.burst-seconds:1}") double burstSeconds) {
+        this.domainPerSecond = domainPerSecond;
+        this.burstSeconds = burstSeconds;
+        this.global = globalPerSecond > 0
+                ? new TokenBucket(globalPerSecond, globalPerSecond * burstSeconds, System.nanoTime())
+                : null;
+        this.globalThrottled = Counter.builder("notification.rate.throttled")
+                .description("Messages that had to wait for a send token")
+                .tag("limit", GLOBAL)
+                .register(meterRegistry);
+        this.domainThrottled = Counter.builder("notification.rate.throttled")
+                .description("Messages that had to wait for a send token")
+                .tag("limit", DOMAIN)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("notification.rate.wait")
+                .description("Time a batch waited for send tokens")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /** Blocks until every message in the batch may be sent. */
+    public void acquire(List<MimeMessage> messages) throws InterruptedException {
+        if (global == null && domainPerSecond <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (MimeMessage message : messages) {
+            String domain = domainOf(message);
+            boolean throttled = false;
+            long wait;
+            while ((wait = tryAcquire(domain, !throttled)) > 0) {
+                throttled = true;
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes a token from both buckets and returns 0, or takes none and returns how
+     * long to wait, counting the message as throttled if {@code count}.
+     */
+    synchronized long tryAcquire(String domain, boolean count) {
+        long now = System.nanoTime();
+        TokenBucket domainBucket = domainPerSecond > 0
+                ? domains.computeIfAbsent(domain, key -> new TokenBucket(domainPerSecond, domainPerSecond * burstSeconds, now))
+                : null;
+        long domainWait = domainBucket == null ? 0 : domainBucket.waitNanos(now);
+        long globalWait = global == null ? 0 : global.waitNanos(now);
+        if (domainWait > 0 || globalWait > 0) {
+            if (count) {
+                (domainWait >= globalWait ? domainThrottled : globalThrottled).increment();
+            }
+            return Math.max(domainWait, globalWait);
+        }
+        if (domainBucket != null) {
+            domainBucket.take();
+        }
+        if (global != null) {
+            global.take();
+        }
+        return 0;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.rate.cleanup-ms:60000}")
+    public synchronized void dropIdleDomains() {
+        long now = System.nanoTime();
+        domains.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    static String domainOf(MimeMessage message) {
+        try {
+            Address[] recipients = message.getAllRecipients();
+            if (recipients != null && recipients.length > 0 && recipients[0] instanceof InternetAddress address) {
+                String email = address.getAddress();
+                int at = email.lastIndexOf('@');
+                if (at >= 0) {
+                    return email.substring(at + 1).toLowerCase(Locale.ROOT);
+                }
+            }
+        } catch (MessagingException e) {
+            // unparseable headers fall into the shared bucket below
+        }
+        return "";
+    }
+}
@@ -0,0 +1,115 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps up to {@code notification.mail.pool-size} SMTP connections open and hands
+ * them out one caller at a time, so consecutive messages skip the TCP connect,
+ * greeting and EHLO (and TLS/AUTH, where configured) that
+ * {@link JavaMailSender#send} repeats for every call.
+ * A connection that sat idle longer than {@code notification.mail.validate-after-idle-ms}
+ * is checked with a NOOP before reuse; broken ones are closed and replaced.
+ */
+@Component
+public class SmtpConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpConnectionPool.class);
+
+    private record IdleConnection(Transport transport, long idleSinceMillis) {}
+
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingQueue<IdleConnection> idle = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+    private final AtomicInteger open = new AtomicInteger();
+    private final long validateAfterIdleMs;
+
+    public SmtpConnectionPool(JavaMailSender mailSender,
+                              MeterRegistry meterRegistry,
+                              @Value("${notification.mail.pool-size:4}") int poolSize,
+                              @Value("${notification.mail.validate-after-idle-ms:5000}") long validateAfterIdleMs) {
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            throw new IllegalStateException("SMTP pooling needs a JavaMailSenderImpl, got " + mailSender.getClass());
+        }
+        this.mailSender = impl;
+        this.permits = new Semaphore(poolSize);
+        this.validateAfterIdleMs = validateAfterIdleMs;
+        Gauge.builder("notification.smtp.connections.open", open, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("notification.smtp.connections.idle", idle, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    /** Blocks until a connection is free, reusing an idle one when possible. */
+    public Transport borrow() throws MessagingException, InterruptedException {
+        permits.acquire();
+        try {
+            IdleConnection candidate;
+            while ((candidate = idle.poll()) != null) {
+                boolean stale = System.currentTimeMillis() - candidate.idleSinceMillis() > validateAfterIdleMs;
+                if (!stale || candidate.transport().isConnected()) {
+                    return candidate.transport();
+                }
+                close(candidate.transport());
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Returns a connection; pass {@code broken} after a failure so it is not reused. */
+    public void release(Transport transport, boolean broken) {
+        if (broken) {
+            close(transport);
+        } else {
+            idle.offer(new IdleConnection(transport, System.currentTimeMillis()));
+        }
+        permits.release();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        IdleConnection connection;
+        while ((connection = idle.poll()) != null) {
+            close(connection.transport());
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() == null ? "smtp" : mailSender.getProtocol());
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                username == null || username.isEmpty() ? null : username,
+                password == null || password.isEmpty() ? null : password);
+        open.incrementAndGet();
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Error closing SMTP connection: {}", e.getMessage());
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+}
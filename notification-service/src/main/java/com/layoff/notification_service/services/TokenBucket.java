@@ -0,0 +1,46 @@
+package com.layoff.notification_service.services;
+
+/**
+ * Token bucket refilled continuously at {@code permitsPerSecond} up to {@code burst}
+ * tokens. Not thread-safe on its own; {@link SendRateLimiter} synchronizes.
+ */
+final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+
+    private double tokens;
+    private long refilledAtNanos;
+
+    TokenBucket(double permitsPerSecond, double burst, long nowNanos) {
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.refilledAtNanos = nowNanos;
+    }
+
+    /** Nanoseconds until one token is available; 0 if one is available now. */
+    long waitNanos(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+    }
+
+    /** Takes one token; only call after {@link #waitNanos} returned 0 for the same instant. */
+    void take() {
+        tokens -= 1;
+    }
+
+    /** True once the bucket has refilled completely, i.e. it carries no state worth keeping. */
+    boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= burst;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - refilledAtNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * permitsPerNano);
+            refilledAtNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.layoff.notification_service.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.layoff.notification_service.dtos.UserChangedEvent;
+import com.layoff.notification_service.dtos.UserDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Local replica of userId to email and display name, so recipients are resolved
+ * with a map read instead of a call to user-service per event.
+ *
+ * Seeded from user-service's NDJSON export before the Kafka consumers start, and
+ * kept current by the {@code users.changed} events every instance consumes. An
+ * event always wins over a snapshot row, so a snapshot that overlaps with live
+ * updates never rolls an address back. A failed snapshot is retried every
+ * {@code notification.users.snapshot-retry-ms} while events keep filling the
+ * replica. Each entry is one packed string rather than an object graph.
+ */
+@Service
+public class UserDirectory implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    private static final char SEPARATOR = '\u0000';
+
+    public record Recipient(String email, String name) {}
+
+    private final ObjectMapper objectMapper;
+    private final DiscoveryClient discoveryClient;
+    private final boolean snapshotEnabled;
+    private final String serviceId;
+    private final String snapshotUrl;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile boolean snapshotLoaded;
+
+    public UserDirectory(ObjectMapper objectMapper,
+                         DiscoveryClient discoveryClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${notification.users.snapshot-enabled:true}") boolean snapshotEnabled,
+                         @Value("${notification.users.service-id:user-service}") String serviceId,
+                         @Value("${notification.users.snapshot-url:http://localhost:7070/api/users/export}") String snapshotUrl,
+                         @Value("${notification.users.snapshot-timeout-ms:300000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.discoveryClient = discoveryClient;
+        this.snapshotEnabled = snapshotEnabled;
+        this.serviceId = serviceId;
+        this.snapshotUrl = snapshotUrl;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        this.hits = Counter.builder("notification.users.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("notification.users.lookups").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("notification.users.directory.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /** Returns the user's email and name, or null if the user is not known (yet). */
+    public Recipient find(String userId) {
+        String entry = userId == null ? null : entries.get(userId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        int separator = entry.indexOf(SEPARATOR);
+        return new Recipient(entry.substring(0, separator), entry.substring(separator + 1));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void apply(UserChangedEvent event) {
+        String entry = pack(event.user());
+        if (entry != null) {
+            entries.put(event.userId() != null ? event.userId() : event.user().id(), entry);
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (snapshotEnabled) {
+            loadSnapshot();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${notification.users.snapshot-retry-ms:60000}",
+            fixedDelayString = "${notification.users.snapshot-retry-ms:60000}")
+    public void retrySnapshot() {
+        if (snapshotEnabled && !snapshotLoaded) {
+            loadSnapshot();
+        }
+    }
+
+    void loadSnapshot() {
+        long start = System.currentTimeMillis();
+        URI uri = snapshotUri();
+        AtomicLong loaded = new AtomicLong();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+                lines.filter(line -> !line.isBlank()).forEach(line -> {
+                    try {
+                        UserDTO user = objectMapper.readValue(line, UserDTO.class);
+                        String entry = pack(user);
+                        if (entry != null && entries.putIfAbsent(user.id(), entry) == null) {
+                            loaded.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Unreadable user record", e);
+                    }
+                });
+            }
+            snapshotLoaded = true;
+            logger.info("Loaded {} users from {} in {} ms", loaded.get(), uri, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load user snapshot from {} ({} users so far): {}", uri, loaded.get(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private URI snapshotUri() {
+        List<ServiceInstance> instances = discoveryClient.getInstances(serviceId);
+        if (instances.isEmpty()) {
+            return URI.create(snapshotUrl);
+        }
+        return instances.get(0).getUri().resolve("/api/users/export");
+    }
+
+    private static String pack(UserDTO user) {
+        if (user == null || user.id() == null || user.email() == null) {
+            return null;
+        }
+        String name = Stream.of(user.firstName(), user.lastName())
+                .filter(part -> part != null && !part.isBlank())
+                .reduce((first, last) -> first + " " + last)
+                .orElse("");
+        return user.email() + SEPARATOR + name;
+    }
+}
@@ -0,0 +1,97 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pooled batch dispatch against a local SMTP stub. The throughput comparison with
+ * the previous one-send-per-event path only runs with {@code -Dbenchmarks=true}.
+ */
+class MailDispatcherBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcherBenchmarkTest.class);
+
+    private static final int MESSAGES = 400;
+    private static final long CONNECT_DELAY_MS = 3;
+
+    @Test
+    void pooledBatchesReuseAtMostOneConnectionPerLane() throws Exception {
+        try (SmtpStubServer server = new SmtpStubServer(0)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(server.port());
+
+            sendPooled(mailSender, messages(mailSender, "pooled"));
+
+            assertEquals(MESSAGES, server.messages().size());
+            assertTrue(server.connections() <= 4, "pooled dispatch opened " + server.connections() + " connections");
+        }
+    }
+
+    /** Opt-in: run with {@code -Dbenchmarks=true}. */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void pooledBatchesOutperformOneConnectionPerMessage() throws Exception {
+        try (SmtpStubServer server = new SmtpStubServer(CONNECT_DELAY_MS)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(server.port());
+
+            long start = System.nanoTime();
+            for (MimeMessage message : messages(mailSender, "single")) {
+                mailSender.send(message);
+            }
+            double singleSeconds = (System.nanoTime() - start) / 1e9;
+            int singleConnections = server.connections();
+
+            List<MimeMessage> batch = messages(mailSender, "pooled");
+            start = System.nanoTime();
+            sendPooled(mailSender, batch);
+            double pooledSeconds = (System.nanoTime() - start) / 1e9;
+            int pooledConnections = server.connections() - singleConnections;
+
+            logger.info("single: {} msg/s over {} connections, pooled: {} msg/s over {} connections",
+                    Math.round(MESSAGES / singleSeconds), singleConnections,
+                    Math.round(MESSAGES / pooledSeconds), pooledConnections);
+            assertTrue(pooledSeconds * 2 < singleSeconds,
+                    "pooled " + pooledSeconds + "s was not at least twice as fast as single " + singleSeconds + "s");
+        }
+    }
+
+    private static void sendPooled(JavaMailSenderImpl mailSender, List<MimeMessage> batch) {
+        SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, new SimpleMeterRegistry(), 4, 5000);
+        MailDispatcher dispatcher = new MailDispatcher(pool, new SendRateLimiter(new SimpleMeterRegistry(), 0, 0, 1),
+                new SimpleMeterRegistry(), 4);
+        for (int from = 0; from < batch.size(); from += 100) {
+            dispatcher.dispatch(batch.subList(from, from + 100));
+        }
+        dispatcher.shutdown();
+        pool.shutdown();
+    }
+
+    private static List<MimeMessage> messages(JavaMailSenderImpl mailSender, String run) throws Exception {
+        List<MimeMessage> messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom("orders@commercial-site.local");
+            helper.setTo("customer" + i + "@example.com");
+            helper.setSubject("Order Created: #" + i);
+            helper.setText(run + " order " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,58 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class MailDispatcherTest {
+
+    @Test
+    void anInterruptedTokenWaitReportsEveryMessageAsFailed() throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, new SimpleMeterRegistry(), 1, 5000);
+        // one token per second and a single token of burst: the batch waits seconds for the rest
+        MailDispatcher dispatcher = new MailDispatcher(pool, new SendRateLimiter(new SimpleMeterRegistry(), 1, 0, 1),
+                new SimpleMeterRegistry(), 1);
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress("customer" + i + "@example.com"));
+            messages.add(message);
+        }
+
+        CompletableFuture<MailSendException> failure = new CompletableFuture<>();
+        Thread sender = new Thread(() -> {
+            try {
+                dispatcher.dispatch(messages);
+                failure.complete(null);
+            } catch (MailSendException e) {
+                failure.complete(e);
+            }
+        });
+        sender.start();
+        Thread.sleep(200);
+        sender.interrupt();
+
+        MailSendException e = failure.get(5, TimeUnit.SECONDS);
+        if (e == null) {
+            fail("dispatch returned normally after being interrupted");
+        }
+        assertEquals(5, e.getFailedMessages().size());
+        assertTrue(e.getFailedMessages().values().stream().allMatch(InterruptedException.class::isInstance));
+
+        dispatcher.shutdown();
+        pool.shutdown();
+    }
+}
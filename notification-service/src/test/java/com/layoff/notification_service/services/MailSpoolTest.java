@@ -0,0 +1,154 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void returnsOnceSpooledAndDeliversInTheBackground() throws Exception {
+        try (SmtpStubServer server = new SmtpStubServer(0)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(server.port());
+            SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, new SimpleMeterRegistry(), 2, 5000);
+            MailDispatcher dispatcher = new MailDispatcher(pool, new SendRateLimiter(new SimpleMeterRegistry(), 0, 0, 1),
+                    new SimpleMeterRegistry(), 2);
+            MailSpool spool = new MailSpool(mailSender, dispatcher, new SimpleMeterRegistry(),
+                    true, directory.toString(), 1 << 20, true, 10, 50, 1000);
+
+            List<MimeMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                helper.setFrom("orders@commercial-site.local");
+                helper.setTo("customer" + i + "@example.com");
+                helper.setSubject("Order Created: #" + i);
+                helper.setText("order " + i);
+                messages.add(message);
+            }
+            spool.send(messages);
+            assertEquals(25, spool.pending());
+            assertEquals(0, server.messages().size());
+
+            spool.startSender();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (spool.pending() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(0, spool.pending());
+            assertEquals(25, server.messages().size());
+            assertTrue(server.messages().stream().anyMatch(data -> data.contains("Order Created: #24")));
+
+            spool.shutdown();
+            dispatcher.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void deadLettersABatchTheServerRejectsOutright() throws Exception {
+        try (SmtpStubServer server = new SmtpStubServer(0)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(server.port());
+            SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, new SimpleMeterRegistry(), 2, 5000);
+            MailDispatcher dispatcher = new MailDispatcher(pool, new SendRateLimiter(new SimpleMeterRegistry(), 0, 0, 1),
+                    new SimpleMeterRegistry(), 2);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            MailSpool spool = new MailSpool(mailSender, dispatcher, registry,
+                    true, directory.toString(), 1 << 20, true, 10, 50, 1000);
+
+            List<MimeMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                helper.setFrom("orders@commercial-site.local");
+                helper.setTo("customer" + i + "@rejected.example");
+                helper.setSubject("Order Created: #" + i);
+                helper.setText("order " + i);
+                messages.add(message);
+            }
+            spool.send(messages);
+            spool.startSender();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (spool.pending() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(0, spool.pending());
+            assertEquals(0, server.messages().size());
+            assertEquals(3.0, registry.counter("notification.spool.dead.lettered").count());
+
+            spool.shutdown();
+            dispatcher.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void respoolsTransientFailuresAndDeadLettersOnlyRejections() throws Exception {
+        try (SmtpStubServer server = new SmtpStubServer(0)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(server.port());
+            SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, new SimpleMeterRegistry(), 1, 5000);
+            MailDispatcher dispatcher = new MailDispatcher(pool, new SendRateLimiter(new SimpleMeterRegistry(), 0, 0, 1),
+                    new SimpleMeterRegistry(), 1);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            MailSpool spool = new MailSpool(mailSender, dispatcher, registry,
+                    true, directory.toString(), 1 << 20, true, 10, 50, 1000);
+
+            List<MimeMessage> messages = new ArrayList<>();
+            for (String to : List.of("customer@example.com", "customer@rejected.example", "customer@greylisted.example")) {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                helper.setFrom("orders@commercial-site.local");
+                helper.setTo(to);
+                helper.setSubject("Order Created for " + to);
+                helper.setText("order");
+                messages.add(message);
+            }
+            spool.send(messages);
+            spool.startSender();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((spool.pending() > 0 || server.messages().size() < 2) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(0, spool.pending());
+            assertEquals(2, server.messages().size());
+            assertEquals(1, server.messages().stream().filter(data -> data.contains("customer@example.com")).count());
+            assertTrue(server.messages().stream().anyMatch(data -> data.contains("customer@greylisted.example")));
+            assertEquals(1.0, registry.counter("notification.spool.dead.lettered").count());
+
+            spool.shutdown();
+            dispatcher.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void onlyServerRejectionsArePermanent() {
+        assertTrue(MailSpool.isPermanentRejection(new SendFailedException("Invalid Addresses")));
+        assertFalse(MailSpool.isPermanentRejection(new MessagingException("Could not connect to SMTP host")));
+    }
+}
@@ -0,0 +1,108 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailTemplateEngineTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailTemplateEngineTest.class);
+
+    @Test
+    void rendersVariablesSectionsAndEscapesHtmlOnly() {
+        Map<String, Object> model = Map.of(
+                "name", "<Ann & Bob>",
+                "rows", List.of(Map.of("n", 1), Map.of("n", 2)),
+                "shown", true,
+                "hidden", false);
+
+        MailTemplate html = MailTemplate.compile("t.html",
+                "Hi {{name}} / {{{name}}}:{{#rows}} [{{n}} of {{name}}]{{/rows}}{{#shown}}!{{/shown}}{{#hidden}}?{{/hidden}}{{missing}}");
+        StringBuilder out = new StringBuilder();
+        html.render(model, out);
+        assertEquals("Hi &lt;Ann &amp; Bob&gt; / <Ann & Bob>: [1 of &lt;Ann &amp; Bob&gt;] [2 of &lt;Ann &amp; Bob&gt;]!",
+                out.toString());
+
+        out.setLength(0);
+        MailTemplate.compile("t.txt", "Hi {{name}}").render(model, out);
+        assertEquals("Hi <Ann & Bob>", out.toString());
+    }
+
+    @Test
+    void rejectsUnbalancedSections() {
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("t.html", "{{#a}}x"));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("t.html", "{{#a}}x{{/b}}"));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("t.html", "{{a"));
+    }
+
+    @Test
+    void rendersOrderEmailsAndRecordsRenderTime() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MailTemplateEngine engine = new MailTemplateEngine(registry, "classpath:mail-templates/");
+        Map<String, Object> model = orderModel();
+
+        String html = engine.render("order-created.html", model);
+        assertTrue(html.contains("Order #42 was created"));
+        assertTrue(html.contains("<td>product-9</td><td align=\"right\">10</td>"));
+        assertFalse(html.contains("{{"));
+
+        for (int i = 0; i < 99; i++) {
+            engine.render("order-created.html", model);
+        }
+        Timer timer = registry.find("notification.template.render").tag("template", "order-created.html").timer();
+        assertNotNull(timer);
+        assertEquals(100, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    /** Opt-in: run with {@code -Dbenchmarks=true}. */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void rendersThousandsOfOrderEmailsPerSecond() {
+        MailTemplateEngine engine = new MailTemplateEngine(new SimpleMeterRegistry(), "classpath:mail-templates/");
+        Map<String, Object> model = orderModel();
+        for (int i = 0; i < 2_000; i++) {
+            engine.render("order-created.html", model);
+        }
+        int renders = 20_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < renders; i++) {
+            engine.render("order-created.html", model);
+        }
+        double perSecond = renders / ((System.nanoTime() - start) / 1e9);
+        logger.info("order-created.html: {} renders/s", Math.round(perSecond));
+        assertTrue(perSecond > 5_000, "expected thousands of renders per second, got " + perSecond);
+    }
+
+    private static Map<String, Object> orderModel() {
+        Map<String, Object> model = new HashMap<>();
+        model.put("orderId", 42L);
+        model.put("userId", "user-1");
+        model.put("status", "CREATED");
+        model.put("totalAmount", new BigDecimal("129.90"));
+        model.put("createdAt", "2025-01-01T10:00");
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(Map.of("productId", "product-" + i, "quantity", i + 1));
+        }
+        model.put("items", items);
+        model.put("itemCount", items.size());
+        return model;
+    }
+}
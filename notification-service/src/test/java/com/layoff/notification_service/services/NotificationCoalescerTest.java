@@ -0,0 +1,127 @@
+package com.layoff.notification_service.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.layoff.notification_service.dtos.OrderCreatedEvent;
+import com.layoff.notification_service.dtos.OrderItemDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationCoalescerTest {
+
+    @Test
+    void sendsOneDigestPerFullBufferAndAcknowledgesOnlyAfterEverythingIsSent() throws Exception {
+        try (SmtpStubServer server = new SmtpStubServer(0)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(server.port());
+            SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, new SimpleMeterRegistry(), 2, 5000);
+            MailDispatcher dispatcher = new MailDispatcher(pool, new SendRateLimiter(new SimpleMeterRegistry(), 0, 0, 1),
+                    new SimpleMeterRegistry(), 2);
+            OrderMailComposer composer = new OrderMailComposer(mailSender,
+                    new MailTemplateEngine(new SimpleMeterRegistry(), "classpath:mail-templates/"),
+                    new UserDirectory(new ObjectMapper(), new SimpleDiscoveryClient(new SimpleDiscoveryProperties()),
+                            new SimpleMeterRegistry(), false, "user-service", "unused", 1000),
+                    "orders@commercial-site.local", "customer@example.com");
+            MailSpool inline = new MailSpool(mailSender, dispatcher, new SimpleMeterRegistry(),
+                    false, "unused", 0, false, 100, 1000, 60_000);
+            NotificationDedupeStore noDedupe = new NotificationDedupeStore(new SimpleMeterRegistry(),
+                    false, "unused", 0, 0, 0, 0.01, false);
+            NotificationCoalescer coalescer = new NotificationCoalescer(composer, inline, noDedupe,
+                    new RecordingDeadLetters(), new SimpleMeterRegistry(), 60_000, 50, 10_000);
+
+            AtomicInteger acks = new AtomicInteger();
+            coalescer.add(events(120), acks::incrementAndGet);
+
+            assertEquals(2, server.messages().size());
+            assertEquals(20, coalescer.bufferedEvents());
+            assertEquals(0, acks.get());
+
+            coalescer.flushAll();
+
+            assertEquals(3, server.messages().size());
+            assertTrue(server.messages().get(0).contains("50 Orders Created"));
+            assertEquals(0, coalescer.bufferedEvents());
+            assertEquals(1, acks.get());
+
+            dispatcher.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void deadLettersAndAcknowledgesADigestThatCannotBeRendered(@TempDir Path directory) throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, new SimpleMeterRegistry(), 1, 5000);
+        MailDispatcher dispatcher = new MailDispatcher(pool, new SendRateLimiter(new SimpleMeterRegistry(), 0, 0, 1),
+                new SimpleMeterRegistry(), 1);
+        OrderMailComposer composer = new OrderMailComposer(mailSender,
+                new MailTemplateEngine(new SimpleMeterRegistry(), "classpath:mail-templates/"),
+                new UserDirectory(new ObjectMapper(), new SimpleDiscoveryClient(new SimpleDiscoveryProperties()),
+                        new SimpleMeterRegistry(), false, "user-service", "unused", 1000),
+                "orders@commercial-site.local", "customer@example.com") {
+            @Override
+            public MimeMessage orderDigest(String recipient, List<OrderCreatedEvent> events) {
+                throw new IllegalStateException("template broken");
+            }
+        };
+        MailSpool inline = new MailSpool(mailSender, dispatcher, new SimpleMeterRegistry(),
+                false, "unused", 0, false, 100, 1000, 60_000);
+        NotificationDedupeStore dedupeStore = new NotificationDedupeStore(new SimpleMeterRegistry(),
+                true, directory.toString(), 60_000, 60_000, 1000, 0.01, false);
+        RecordingDeadLetters deadLetters = new RecordingDeadLetters();
+        NotificationCoalescer coalescer = new NotificationCoalescer(composer, inline, dedupeStore,
+                deadLetters, new SimpleMeterRegistry(), 60_000, 50, 10_000);
+
+        List<OrderCreatedEvent> events = events(10);
+        events.forEach(event -> assertTrue(dedupeStore.claim(OrderNotificationService.key(event))));
+        AtomicInteger acks = new AtomicInteger();
+        coalescer.add(events, acks::incrementAndGet);
+        coalescer.flushAll();
+
+        assertEquals(events, deadLetters.published);
+        assertEquals(0, coalescer.bufferedEvents());
+        assertEquals(1, acks.get());
+        assertTrue(dedupeStore.claim(OrderNotificationService.key(events.get(0))));
+
+        dispatcher.shutdown();
+        pool.shutdown();
+    }
+
+    private static final class RecordingDeadLetters extends OrderEventDeadLetters {
+        private final List<OrderCreatedEvent> published = new ArrayList<>();
+
+        private RecordingDeadLetters() {
+            super(null);
+        }
+
+        @Override
+        public boolean publish(List<OrderCreatedEvent> events) {
+            published.addAll(events);
+            return true;
+        }
+    }
+
+    private static List<OrderCreatedEvent> events(int count) {
+        List<OrderCreatedEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new OrderCreatedEvent((long) i, "user-1", "CONFIRMED",
+                    List.of(new OrderItemDTO(1L, "42", 1)), new BigDecimal("10.00"), LocalDateTime.now()));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,69 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationDedupeStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private NotificationDedupeStore open() {
+        return new NotificationDedupeStore(new SimpleMeterRegistry(), true, directory.toString(),
+                86_400_000, 3_600_000, 100_000, 0.000001, false);
+    }
+
+    private static String key(long orderId) {
+        return NotificationDedupeStore.key(NotificationDedupeStore.ORDER_CREATED, orderId);
+    }
+
+    @Test
+    void skipsClaimedAndSentKeysButNotReleasedOnes() throws Exception {
+        NotificationDedupeStore store = open();
+
+        assertTrue(store.claim(key(1)));
+        assertFalse(store.claim(key(1)), "in-flight duplicate within a batch");
+        store.sent(List.of(key(1)));
+        assertFalse(store.claim(key(1)));
+
+        assertTrue(store.claim(key(2)));
+        store.release(List.of(key(2)));
+        assertTrue(store.claim(key(2)), "a failed send must be retried on redelivery");
+        store.close();
+    }
+
+    @Test
+    void remembersSentKeysAcrossRestarts() throws Exception {
+        NotificationDedupeStore store = open();
+        List<String> keys = new ArrayList<>();
+        for (long orderId = 0; orderId < 5_000; orderId++) {
+            assertTrue(store.claim(key(orderId)));
+            keys.add(key(orderId));
+        }
+        store.sent(keys);
+        store.maintain();
+        store.close();
+
+        NotificationDedupeStore reopened = open();
+        for (long orderId = 0; orderId < 5_000; orderId++) {
+            assertFalse(reopened.claim(key(orderId)));
+        }
+        int fresh = 0;
+        for (long orderId = 5_000; orderId < 15_000; orderId++) {
+            if (reopened.claim(key(orderId))) {
+                fresh++;
+            }
+        }
+        assertEquals(10_000, fresh);
+        reopened.close();
+    }
+}
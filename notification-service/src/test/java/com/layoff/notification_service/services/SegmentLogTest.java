@@ -0,0 +1,83 @@
+package com.layoff.notification_service.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAppendedRecordsAcrossSegmentsAndResumesFromTheCommittedCursor() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, 256, true)) {
+            log.append(records(0, 20));
+            assertEquals(20, log.pending());
+
+            List<SegmentLog.Entry> first = log.read(8);
+            assertEquals("message-0", text(first.get(0)));
+            log.commit(first.get(first.size() - 1).next(), first.size());
+        }
+
+        try (SegmentLog reopened = new SegmentLog(directory, 256, true)) {
+            assertEquals(12, reopened.pending());
+            List<SegmentLog.Entry> rest = reopened.read(100);
+            assertEquals(12, rest.size());
+            assertEquals("message-8", text(rest.get(0)));
+            assertEquals("message-19", text(rest.get(11)));
+
+            reopened.commit(rest.get(rest.size() - 1).next(), rest.size());
+            assertEquals(0, reopened.pending());
+        }
+        // fully consumed segments are deleted, only the tail remains
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    void dropsATornRecordAtTheEndOfTheLog() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, 1 << 20, true)) {
+            log.append(records(0, 3));
+        }
+        Path tail = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(tail, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        }
+
+        try (SegmentLog recovered = new SegmentLog(directory, 1 << 20, true)) {
+            assertEquals(2, recovered.pending());
+            recovered.append(records(3, 4));
+            List<SegmentLog.Entry> entries = recovered.read(10);
+            assertEquals(List.of("message-0", "message-1", "message-3"), entries.stream().map(SegmentLogTest::text).toList());
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static List<byte[]> records(int from, int to) {
+        List<byte[]> records = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            records.add(("message-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+
+    private static String text(SegmentLog.Entry entry) {
+        return new String(entry.payload(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package com.layoff.notification_service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendRateLimiterTest {
+
+    private static final Session SESSION = Session.getInstance(new Properties());
+
+    private static List<MimeMessage> messages(String domain, int count) throws Exception {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = new MimeMessage(SESSION);
+            message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress("user" + i + "@" + domain));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    void limitsEachDomainSeparately() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SendRateLimiter limiter = new SendRateLimiter(registry, 0, 50, 0.1);
+
+        List<MimeMessage> burst = messages("Example.com", 5);
+        List<MimeMessage> otherBurst = messages("other.org", 5);
+        List<MimeMessage> backlog = messages("example.com", 25);
+
+        long start = System.nanoTime();
+        limiter.acquire(burst);
+        limiter.acquire(otherBurst);
+        // bursts within both domains pass straight through
+        assertEquals(0, registry.find("notification.rate.throttled").tag("limit", "domain").counter().count());
+
+        limiter.acquire(backlog);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertTrue(seconds >= 0.45, "25 messages at 50/s after an exhausted burst took " + seconds + "s");
+        // a slow machine may refill a token between two messages, so not every one has to wait
+        double throttled = registry.find("notification.rate.throttled").tag("limit", "domain").counter().count();
+        assertTrue(throttled >= 20 && throttled <= 25, throttled + " of 25 messages waited for a domain token");
+        assertEquals(0, registry.find("notification.rate.throttled").tag("limit", "global").counter().count());
+    }
+
+    @Test
+    void limitsAllDomainsTogetherGlobally() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SendRateLimiter limiter = new SendRateLimiter(registry, 100, 0, 0.1);
+        List<MimeMessage> mixed = new ArrayList<>(messages("a.com", 20));
+        mixed.addAll(messages("b.com", 20));
+        mixed.addAll(messages("c.com", 20));
+
+        long start = System.nanoTime();
+        limiter.acquire(mixed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // 10 tokens of burst, then 50 more at 100/s
+        assertTrue(seconds >= 0.45, "60 messages at 100/s took " + seconds + "s");
+        double throttled = registry.find("notification.rate.throttled").tag("limit", "global").counter().count();
+        assertTrue(throttled >= 40 && throttled <= 50, throttled + " of 60 messages waited, the 10 burst tokens should not");
+        assertEquals(0, registry.find("notification.rate.throttled").tag("limit", "domain").counter().count());
+    }
+
+    @Test
+    void admitsEverythingWhenUnlimited() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SendRateLimiter limiter = new SendRateLimiter(registry, 0, 0, 1);
+        limiter.acquire(messages("example.com", 10_000));
+
+        assertEquals(0, limiter.tryAcquire("example.com", true));
+        assertEquals(0, registry.find("notification.rate.throttled").tag("limit", "global").counter().count());
+        assertEquals(0, registry.find("notification.rate.throttled").tag("limit", "domain").counter().count());
+    }
+}
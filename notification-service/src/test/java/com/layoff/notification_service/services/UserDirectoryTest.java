@@ -0,0 +1,57 @@
+package com.layoff.notification_service.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.layoff.notification_service.dtos.UserChangedEvent;
+import com.layoff.notification_service.dtos.UserDTO;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserDirectoryTest {
+
+    @Test
+    void seedsFromTheExportAndLetsEventsWinOverSnapshotRows() throws Exception {
+        StringBuilder export = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            export.append("{\"id\":\"u").append(i).append("\",\"firstName\":\"First").append(i)
+                    .append("\",\"lastName\":\"Last\",\"email\":\"u").append(i)
+                    .append("@example.com\",\"role\":\"CUSTOMER\",\"address\":null}\n");
+        }
+        byte[] body = export.toString().getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/users/export", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            UserDirectory directory = new UserDirectory(new ObjectMapper(),
+                    new SimpleDiscoveryClient(new SimpleDiscoveryProperties()), new SimpleMeterRegistry(), true,
+                    "user-service", "http://localhost:" + server.getAddress().getPort() + "/api/users/export", 5000);
+
+            // an update consumed before the snapshot arrives must not be rolled back by it
+            directory.apply(new UserChangedEvent("u7", "UPDATED",
+                    new UserDTO("u7", "Seven", null, "seven@example.com"), LocalDateTime.now()));
+            directory.loadSnapshot();
+
+            assertEquals(1_000, directory.size());
+            assertEquals(new UserDirectory.Recipient("u1@example.com", "First1 Last"), directory.find("u1"));
+            assertEquals(new UserDirectory.Recipient("seven@example.com", "Seven"), directory.find("u7"));
+            assertNull(directory.find("unknown"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.layoff.order_service;
 
+import com.layoff.order_service.services.UserLookupService;
+import com.layoff.user_service.dtos.UserChangedEvent;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.util.function.Consumer;
 
 @SpringBootApplication
 public class OrderServiceApplication {
@@ -10,4 +15,9 @@ public class OrderServiceApplication {
 		SpringApplication.run(OrderServiceApplication.class, args);
 	}
 
+	@Bean
+	public Consumer<UserChangedEvent> userChanged(UserLookupService userLookupService) {
+		return event -> userLookupService.evict(event.getUserId());
+	}
+
 }
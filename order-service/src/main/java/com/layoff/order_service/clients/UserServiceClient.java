@@ -1,13 +1,21 @@
 package com.layoff.order_service.clients;
 
+import com.layoff.user_service.dtos.BatchUserRequest;
 import com.layoff.user_service.dtos.UserResponse;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
+import org.springframework.web.service.annotation.PostExchange;
+
+import java.util.List;
 
 @HttpExchange
 public interface UserServiceClient {
 
     @GetExchange("/api/users/{id}")
     UserResponse getUserDetails(@PathVariable String id);
-}
\ No newline at end of file
+
+    @PostExchange("/api/users/batch")
+    List<UserResponse> getUsersDetails(@RequestBody BatchUserRequest request);
+}
@@ -1,6 +1,7 @@
 package com.layoff.order_service.dtos;
 
 import com.layoff.order_service.models.OrderStatus;
+import com.layoff.user_service.dtos.UserResponse;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -16,5 +17,7 @@ public class OrderResponse {
     private OrderStatus status;
     private List<OrderItemDTO> items;
     private LocalDateTime createdAt;
+    // resolved through the user cache; null when user-service could not be reached
+    private UserResponse customer;
 
 }
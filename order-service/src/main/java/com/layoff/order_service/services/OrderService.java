@@ -8,6 +8,7 @@ import com.layoff.order_service.models.Order;
 import com.layoff.order_service.models.OrderItem;
 import com.layoff.order_service.models.OrderStatus;
 import com.layoff.order_service.repositories.OrderRepository;
+import com.layoff.user_service.dtos.UserResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +29,7 @@ public class OrderService {
     private final CartService cartService;
     private final OrderRepository orderRepository;
     private final StreamBridge streamBridge;
+    private final UserLookupService userLookupService;
     
     @Transactional
     public Optional<OrderResponse> createOrder(String userId) {
@@ -92,10 +94,20 @@ public class OrderService {
         }
         logger.info("=== ORDER CREATION FLOW COMPLETED ===");
 
-        return Optional.of(mapToOrderResponse(savedOrder));
+        return Optional.of(mapToOrderResponse(savedOrder, lookupCustomer(userId)));
     }
 
-    private OrderResponse mapToOrderResponse(Order savedOrder) {
+    /** The checkout view shows who ordered; the order itself does not depend on user-service being up. */
+    private UserResponse lookupCustomer(String userId) {
+        try {
+            return userLookupService.getUser(userId).orElse(null);
+        } catch (RuntimeException e) {
+            logger.warn("Could not resolve customer details for userId: {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private OrderResponse mapToOrderResponse(Order savedOrder, UserResponse customer) {
         return new OrderResponse(
                 savedOrder.getId(),
                 savedOrder.getTotalAmount(),
@@ -107,7 +119,8 @@ public class OrderService {
                         item.getPrice(),
                         item.getPrice().multiply(new BigDecimal(item.getQuantity()))
                 )).toList(),
-                savedOrder.getCreatedAt()
+                savedOrder.getCreatedAt(),
+                customer
         );
     }
 
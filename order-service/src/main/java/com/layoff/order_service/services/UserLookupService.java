@@ -0,0 +1,85 @@
+package com.layoff.order_service.services;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.layoff.order_service.clients.UserServiceClient;
+import com.layoff.user_service.dtos.BatchUserRequest;
+import com.layoff.user_service.dtos.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through cache of user details in front of {@link UserServiceClient}.
+ *
+ * Entries are bounded by {@code order.user-cache.max-size} and expire after
+ * {@code order.user-cache.ttl-seconds}; updates published by user-service evict
+ * them earlier. Misses for several users are fetched with one batch call instead
+ * of one request per user.
+ */
+@Service
+public class UserLookupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookupService.class);
+
+    private final LoadingCache<String, UserResponse> users;
+
+    public UserLookupService(UserServiceClient userServiceClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${order.user-cache.max-size:10000}") long maxSize,
+                             @Value("${order.user-cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${order.user-cache.batch-size:200}") int batchSize) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public UserResponse load(String id) {
+                        return userServiceClient.getUserDetails(id);
+                    }
+
+                    @Override
+                    public Map<String, UserResponse> loadAll(Set<? extends String> ids) {
+                        List<String> pending = List.copyOf(ids);
+                        Map<String, UserResponse> loaded = new HashMap<>();
+                        for (int from = 0; from < pending.size(); from += batchSize) {
+                            BatchUserRequest request = new BatchUserRequest();
+                            request.setIds(pending.subList(from, Math.min(from + batchSize, pending.size())));
+                            List<UserResponse> page = userServiceClient.getUsersDetails(request);
+                            if (page != null) {
+                                page.forEach(user -> loaded.put(user.getId(), user));
+                            }
+                        }
+                        return loaded;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "order.user-cache");
+    }
+
+    public Optional<UserResponse> getUser(String id) {
+        return Optional.ofNullable(users.get(id));
+    }
+
+    /** Returns the known users among {@code ids}, keyed by id; unknown ids are omitted. */
+    public Map<String, UserResponse> getUsers(Collection<String> ids) {
+        return users.getAll(ids);
+    }
+
+    public void evict(String id) {
+        users.invalidate(id);
+        logger.debug("Evicted cached user {}", id);
+    }
+}
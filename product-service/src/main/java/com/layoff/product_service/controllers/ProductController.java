@@ -1,7 +1,9 @@
 package com.layoff.product_service.controllers;
 
+import com.layoff.product_service.dtos.ProductChangesResponse;
 import com.layoff.product_service.dtos.ProductRequest;
 import com.layoff.product_service.dtos.ProductResponse;
+import com.layoff.product_service.dtos.ProductSuggestion;
 import com.layoff.product_service.services.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -56,4 +58,18 @@ public class ProductController {
     public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String keyword) {
         return ResponseEntity.ok(productService.searchProducts(keyword));
     }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponse> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(productService.getChangesSince(since, limit));
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<ProductSuggestion>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.autocomplete(prefix, limit));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.layoff.product_service.controllers;
+
+import com.layoff.product_service.dtos.ProductResponse;
+import com.layoff.product_service.repositories.ReactiveProductReader;
+import com.layoff.product_service.services.ProductAutocompleteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variants of the product GET endpoints. Spring MVC subscribes to the
+ * returned publishers asynchronously, so request threads are released while the
+ * query is in flight instead of being parked on a JDBC connection.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/products/reactive")
+@ConditionalOnProperty(name = "product.reactive.enabled", havingValue = "true")
+public class ReactiveProductController {
+
+    private final ReactiveProductReader reactiveProductReader;
+    private final ProductAutocompleteService productAutocompleteService;
+
+    @GetMapping
+    public Flux<ProductResponse> getProducts() {
+        return reactiveProductReader.findAllActive();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ProductResponse>> getProductById(@PathVariable Long id) {
+        return reactiveProductReader.findActiveById(id)
+                .doOnNext(product -> productAutocompleteService.recordView(product.getId()))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/search")
+    public Flux<ProductResponse> searchProducts(@RequestParam String keyword) {
+        return reactiveProductReader.search(keyword);
+    }
+}
@@ -0,0 +1,16 @@
+package com.layoff.product_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesResponse {
+    private List<ProductResponse> changes;
+    private Long nextVersion;
+    private boolean hasMore;
+}
@@ -14,4 +14,5 @@ public class ProductResponse {
     private String category;
     private String imageUrl;
     private Boolean active;
+    private Long changeVersion;
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.layoff.product_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestion {
+    private String text;
+    private String type;
+    private Long productId;
+    private Long score;
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
@@ -13,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity(name = "products")
+@Table(indexes = @Index(name = "idx_products_change_version", columnList = "changeVersion"))
 @Data
 @NoArgsConstructor
 public class Product {
@@ -26,6 +29,7 @@ public class Product {
     private String category;
     private String imageUrl;
     private Boolean active = true;
+    private Long changeVersion;
 
     @CreationTimestamp
     private LocalDateTime createdAt;
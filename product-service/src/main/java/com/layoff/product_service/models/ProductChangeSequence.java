@@ -0,0 +1,22 @@
+package com.layoff.product_service.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single-row counter that hands out catalog change versions. The row is locked
+ * for the rest of the writing transaction, so versions become visible to
+ * readers in the same order they were assigned.
+ */
+@Entity(name = "product_change_sequence")
+@Data
+@NoArgsConstructor
+public class ProductChangeSequence {
+    public static final Long CATALOG = 1L;
+
+    @Id
+    private Long id;
+    private Long lastVersion;
+}
@@ -0,0 +1,31 @@
+package com.layoff.product_service.repositories;
+
+import com.layoff.product_service.models.ProductChangeSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductChangeSequenceRepository extends JpaRepository<ProductChangeSequence, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM product_change_sequence s WHERE s.id = :id")
+    Optional<ProductChangeSequence> findForUpdate(@Param("id") Long id);
+
+    /**
+     * Creates the counter row, starting after the highest version already handed
+     * out. A no-op when the row exists, so every instance can run it at startup.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO product_change_sequence (id, last_version) "
+            + "SELECT :id, COALESCE(MAX(change_version), 0) FROM products", nativeQuery = true)
+    int seed(@Param("id") Long id);
+}
@@ -2,6 +2,7 @@ package com.layoff.product_service.repositories;
 
 
 import com.layoff.product_service.models.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,4 +19,11 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> searchProducts(@Param("keyword") String keyword);
 
     Optional<Product> findByIdAndActiveTrue(Long id);
+
+    List<Product> findByChangeVersionGreaterThanOrderByChangeVersionAsc(Long since, Pageable pageable);
+
+    List<Product> findByChangeVersionIsNullOrderByIdAsc();
+
+    @Query("SELECT COALESCE(MAX(p.changeVersion), 0) FROM products p")
+    long findMaxChangeVersion();
 }
\ No newline at end of file
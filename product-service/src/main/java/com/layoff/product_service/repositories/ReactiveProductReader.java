@@ -0,0 +1,62 @@
+package com.layoff.product_service.repositories;
+
+import com.layoff.product_service.dtos.ProductResponse;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only product queries over R2DBC, mapped straight to {@link ProductResponse}
+ * without going through the JPA entity.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "product.reactive.enabled", havingValue = "true")
+public class ReactiveProductReader {
+
+    private static final String COLUMNS =
+            "SELECT id, name, description, price, stock_quantity, category, image_url, active, change_version FROM products ";
+
+    private final DatabaseClient reactiveDatabaseClient;
+
+    public Mono<ProductResponse> findActiveById(Long id) {
+        return reactiveDatabaseClient.sql(COLUMNS + "WHERE id = :id AND active = true")
+                .bind("id", id)
+                .map(ReactiveProductReader::mapRow)
+                .one();
+    }
+
+    public Flux<ProductResponse> findAllActive() {
+        return reactiveDatabaseClient.sql(COLUMNS + "WHERE active = true")
+                .map(ReactiveProductReader::mapRow)
+                .all();
+    }
+
+    public Flux<ProductResponse> search(String keyword) {
+        return reactiveDatabaseClient.sql(COLUMNS
+                        + "WHERE active = true AND stock_quantity > 0 AND LOWER(name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+                .bind("keyword", keyword)
+                .map(ReactiveProductReader::mapRow)
+                .all();
+    }
+
+    private static ProductResponse mapRow(Readable row) {
+        ProductResponse response = new ProductResponse();
+        response.setId(row.get("id", Long.class));
+        response.setName(row.get("name", String.class));
+        response.setDescription(row.get("description", String.class));
+        response.setPrice(row.get("price", BigDecimal.class));
+        response.setStockQuantity(row.get("stock_quantity", Integer.class));
+        response.setCategory(row.get("category", String.class));
+        response.setImageUrl(row.get("image_url", String.class));
+        response.setActive(row.get("active", Boolean.class));
+        response.setChangeVersion(row.get("change_version", Long.class));
+        return response;
+    }
+}
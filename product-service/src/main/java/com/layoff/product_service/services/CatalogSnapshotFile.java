@@ -0,0 +1,139 @@
+package com.layoff.product_service.services;
+
+import com.layoff.product_service.models.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary codec for the local catalog snapshot.
+ *
+ * Layout: magic, format, change version the snapshot is consistent with, write
+ * time, product count, then one record per product (fixed-width numbers followed
+ * by length-prefixed UTF-8 strings), and a CRC32 of everything before it.
+ * Files are written to a temp file and moved into place, and read back through a
+ * read-only memory mapping so loading does not copy the file onto the heap first.
+ */
+final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x50534E50; // "PSNP"
+    private static final int FORMAT = 1;
+    private static final int NULL_LENGTH = -1;
+
+    record Snapshot(long changeVersion, long writtenAtMillis, List<Product> products) {}
+
+    private CatalogSnapshotFile() {
+    }
+
+    static void write(Path path, long changeVersion, List<Product> products) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(temp);
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 64 * 1024), crc);
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(changeVersion);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(products.size());
+                for (Product product : products) {
+                    out.writeLong(product.getId());
+                    out.writeLong(product.getChangeVersion() == null ? 0 : product.getChangeVersion());
+                    out.writeBoolean(Boolean.TRUE.equals(product.getActive()));
+                    out.writeInt(product.getStockQuantity() == null ? 0 : product.getStockQuantity());
+                    writeString(out, product.getPrice() == null ? null : product.getPrice().toPlainString());
+                    writeString(out, product.getName());
+                    writeString(out, product.getDescription());
+                    writeString(out, product.getCategory());
+                    writeString(out, product.getImageUrl());
+                }
+                out.flush();
+                // the checksum itself is written outside the checked stream
+                DataOutputStream trailer = new DataOutputStream(file);
+                trailer.writeLong(crc.getValue());
+                trailer.flush();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int bodyLength = buffer.limit() - Long.BYTES;
+            if (bodyLength < 0) {
+                throw new IOException("Catalog snapshot " + path + " is truncated");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit(bodyLength));
+            if (crc.getValue() != buffer.getLong(bodyLength)) {
+                throw new IOException("Catalog snapshot " + path + " failed its checksum");
+            }
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                throw new IOException("Catalog snapshot " + path + " has an unknown format");
+            }
+            long changeVersion = buffer.getLong();
+            long writtenAt = buffer.getLong();
+            int count = buffer.getInt();
+
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Product product = new Product();
+                product.setId(buffer.getLong());
+                product.setChangeVersion(buffer.getLong());
+                product.setActive(buffer.get() != 0);
+                product.setStockQuantity(buffer.getInt());
+                String price = readString(buffer);
+                product.setPrice(price == null ? null : new BigDecimal(price));
+                product.setName(readString(buffer));
+                product.setDescription(readString(buffer));
+                product.setCategory(readString(buffer));
+                product.setImageUrl(readString(buffer));
+                products.add(product);
+            }
+            return new Snapshot(changeVersion, writtenAt, products);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
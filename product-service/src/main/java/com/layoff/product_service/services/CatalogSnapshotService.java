@@ -0,0 +1,134 @@
+package com.layoff.product_service.services;
+
+import com.layoff.product_service.models.Product;
+import com.layoff.product_service.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warm start for the in-memory catalog structures.
+ *
+ * Every {@code product.snapshot.interval-ms} the active catalog is written to a
+ * local binary file if it changed since the last snapshot. On startup the file is
+ * memory-mapped and fed to the autocomplete index, then only the changes made
+ * after the snapshot's change version are read from MySQL. This runs once all
+ * singletons exist but before lifecycle beans start, so the instance is warm
+ * before it registers with Eureka and receives traffic.
+ */
+@Service
+public class CatalogSnapshotService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private static final int CATCH_UP_PAGE_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductAutocompleteService productAutocompleteService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Path snapshotPath;
+
+    private volatile long snapshotVersion = -1;
+
+    public CatalogSnapshotService(ProductRepository productRepository,
+                                  ProductAutocompleteService productAutocompleteService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${product.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${product.snapshot.path:${java.io.tmpdir}/product-service/catalog.snapshot}") String snapshotPath) {
+        this.productRepository = productRepository;
+        this.productAutocompleteService = productAutocompleteService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.snapshotPath = Path.of(snapshotPath);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.currentTimeMillis();
+        if (!enabled || !Files.exists(snapshotPath)) {
+            productAutocompleteService.loadCatalog(productRepository.findByActiveTrue());
+            logger.info("Loaded catalog from database in {} ms", System.currentTimeMillis() - start);
+            return;
+        }
+
+        CatalogSnapshotFile.Snapshot snapshot;
+        try {
+            snapshot = CatalogSnapshotFile.read(snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable catalog snapshot {}: {}", snapshotPath, e.getMessage());
+            productAutocompleteService.loadCatalog(productRepository.findByActiveTrue());
+            return;
+        }
+
+        Map<Long, Product> catalog = new LinkedHashMap<>();
+        for (Product product : snapshot.products()) {
+            catalog.put(product.getId(), product);
+        }
+        int caughtUp = catchUp(catalog, snapshot.changeVersion());
+        catalog.values().removeIf(product -> !Boolean.TRUE.equals(product.getActive()));
+        productAutocompleteService.loadCatalog(catalog.values());
+        snapshotVersion = snapshot.changeVersion();
+
+        logger.info("Warm-started catalog from snapshot v{} ({} products) plus {} newer changes in {} ms",
+                snapshot.changeVersion(), snapshot.products().size(), caughtUp,
+                System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(initialDelayString = "${product.snapshot.interval-ms:300000}",
+            fixedDelayString = "${product.snapshot.interval-ms:300000}")
+    public void writeSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        readOnlyTransaction.executeWithoutResult(status -> {
+            // read the version first so the snapshot is never ahead of what it claims
+            long version = productRepository.findMaxChangeVersion();
+            if (version == snapshotVersion) {
+                return;
+            }
+            List<Product> products = productRepository.findByActiveTrue();
+            try {
+                CatalogSnapshotFile.write(snapshotPath, version, products);
+                snapshotVersion = version;
+                logger.info("Wrote catalog snapshot v{} with {} products to {}", version, products.size(), snapshotPath);
+            } catch (IOException e) {
+                logger.warn("Failed to write catalog snapshot {}: {}", snapshotPath, e.getMessage());
+            }
+        });
+    }
+
+    private int catchUp(Map<Long, Product> catalog, long since) {
+        int applied = 0;
+        long version = since;
+        try {
+            List<Product> page;
+            do {
+                page = productRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(
+                        version, PageRequest.of(0, CATCH_UP_PAGE_SIZE));
+                for (Product product : page) {
+                    catalog.put(product.getId(), product);
+                    version = product.getChangeVersion();
+                }
+                applied += page.size();
+            } while (page.size() == CATCH_UP_PAGE_SIZE);
+        } catch (RuntimeException e) {
+            logger.warn("Could not catch up catalog changes after v{}; serving snapshot data: {}", version, e.getMessage());
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,160 @@
+package com.layoff.product_service.services;
+
+import com.layoff.product_service.dtos.ProductSuggestion;
+import com.layoff.product_service.models.Product;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Search-as-you-type suggestions served from an in-memory {@link ProductSuggestionIndex}.
+ *
+ * The index is seeded by {@link CatalogSnapshotService} at startup and rebuilt in
+ * the background whenever a product is created, updated or deactivated and that
+ * change has committed.
+ * Products are weighted by how often they are fetched by id; categories by the sum
+ * of their products' weights. Popularity alone only triggers a rebuild every
+ * {@code product.autocomplete.popularity-refresh-ms}.
+ */
+@Service
+public class ProductAutocompleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductAutocompleteService.class);
+
+    private record CatalogEntry(String name, String category) {}
+
+    private final Timer lookupTimer;
+    private final int maxLimit;
+    private final long popularityRefreshMs;
+
+    private final Map<Long, CatalogEntry> catalog = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> views = new ConcurrentHashMap<>();
+    private final AtomicBoolean catalogChanged = new AtomicBoolean();
+    private final AtomicBoolean popularityChanged = new AtomicBoolean();
+
+    private volatile ProductSuggestionIndex index = ProductSuggestionIndex.EMPTY;
+    private volatile long lastRebuildMillis;
+
+    public ProductAutocompleteService(MeterRegistry meterRegistry,
+                                      @Value("${product.autocomplete.max-limit:20}") int maxLimit,
+                                      @Value("${product.autocomplete.popularity-refresh-ms:30000}") long popularityRefreshMs) {
+        this.maxLimit = maxLimit;
+        this.popularityRefreshMs = popularityRefreshMs;
+        this.lookupTimer = Timer.builder("product.autocomplete.lookup")
+                .description("Time to answer one autocomplete query from the in-memory index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("product.autocomplete.entries", this, s -> s.index.entryCount())
+                .register(meterRegistry);
+        Gauge.builder("product.autocomplete.terms", this, s -> s.index.termCount())
+                .register(meterRegistry);
+        Gauge.builder("product.autocomplete.memory", this, s -> s.index.estimatedBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("product.autocomplete.memory.per.entry", this, s -> s.index.bytesPerEntry())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void loadCatalog(Iterable<Product> activeProducts) {
+        catalog.clear();
+        for (Product product : activeProducts) {
+            catalog.put(product.getId(), new CatalogEntry(product.getName(), product.getCategory()));
+        }
+        catalogChanged.set(false);
+        rebuild();
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        ProductSuggestionIndex current = index;
+        int boundedLimit = Math.min(Math.max(limit, 1), maxLimit);
+        return lookupTimer.record(() -> current.suggest(prefix, boundedLimit));
+    }
+
+    /**
+     * Records a created, updated or deactivated product. Inside a transaction the
+     * change is applied only once it commits, so a rollback never reaches the index.
+     */
+    public void productChanged(Product product) {
+        Long id = product.getId();
+        CatalogEntry entry = Boolean.TRUE.equals(product.getActive())
+                ? new CatalogEntry(product.getName(), product.getCategory())
+                : null;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyChange(id, entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyChange(id, entry);
+            }
+        });
+    }
+
+    private void applyChange(Long id, CatalogEntry entry) {
+        if (entry != null) {
+            catalog.put(id, entry);
+        } else {
+            catalog.remove(id);
+            views.remove(id);
+        }
+        catalogChanged.set(true);
+    }
+
+    public void recordView(Long productId) {
+        views.computeIfAbsent(productId, id -> new LongAdder()).increment();
+        popularityChanged.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${product.autocomplete.refresh-ms:1000}")
+    public void refreshIfChanged() {
+        boolean popularityDue = System.currentTimeMillis() - lastRebuildMillis >= popularityRefreshMs;
+        if (catalogChanged.getAndSet(false)) {
+            rebuild();
+        } else if (popularityDue && popularityChanged.get()) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        long start = System.nanoTime();
+        popularityChanged.set(false);
+
+        ProductSuggestionIndex.Builder builder = new ProductSuggestionIndex.Builder();
+        Map<String, Long> categoryWeights = new HashMap<>();
+        Map<String, String> categoryNames = new HashMap<>();
+        catalog.forEach((id, entry) -> {
+            LongAdder viewCount = views.get(id);
+            long weight = viewCount == null ? 0 : viewCount.sum();
+            builder.addProduct(id, entry.name(), weight);
+            String key = ProductSuggestionIndex.normalize(entry.category());
+            if (!key.isEmpty()) {
+                categoryWeights.merge(key, weight + 1, Long::sum);
+                categoryNames.putIfAbsent(key, entry.category());
+            }
+        });
+        categoryWeights.forEach((key, weight) -> builder.addCategory(categoryNames.get(key), weight));
+
+        ProductSuggestionIndex rebuilt = builder.build();
+        index = rebuilt;
+        lastRebuildMillis = System.currentTimeMillis();
+        logger.debug("Rebuilt autocomplete index: {} entries, {} terms, {} bytes/entry in {} ms",
+                rebuilt.entryCount(), rebuilt.termCount(), Math.round(rebuilt.bytesPerEntry()),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -1,11 +1,21 @@
 package com.layoff.product_service.services;
 
+import com.layoff.product_service.dtos.ProductChangesResponse;
 import com.layoff.product_service.dtos.ProductRequest;
 import com.layoff.product_service.dtos.ProductResponse;
+import com.layoff.product_service.dtos.ProductSuggestion;
 import com.layoff.product_service.models.Product;
+import com.layoff.product_service.models.ProductChangeSequence;
+import com.layoff.product_service.repositories.ProductChangeSequenceRepository;
 import com.layoff.product_service.repositories.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,14 +23,22 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class ProductService {
+public class ProductService implements SmartInitializingSingleton {
 
     private final ProductRepository productRepository;
+    private final ProductAutocompleteService productAutocompleteService;
+    private final ProductChangeSequenceRepository productChangeSequenceRepository;
 
+    @Value("${product.changes.max-page-size:500}")
+    private int maxChangesPageSize;
+
+    @Transactional
     public ProductResponse createProduct(ProductRequest productRequest) {
         Product product = new Product();
         updateProductFromRequest(product, productRequest);
+        product.setChangeVersion(nextChangeVersion());
         Product savedProduct = productRepository.save(product);
+        productAutocompleteService.productChanged(savedProduct);
         return mapToProductResponse(savedProduct);
     }
 
@@ -34,6 +52,7 @@ public class ProductService {
         response.setPrice(savedProduct.getPrice());
         response.setImageUrl(savedProduct.getImageUrl());
         response.setStockQuantity(savedProduct.getStockQuantity());
+        response.setChangeVersion(savedProduct.getChangeVersion());
         return response;
     }
 
@@ -46,11 +65,14 @@ public class ProductService {
         product.setStockQuantity(productRequest.getStockQuantity());
     }
 
+    @Transactional
     public Optional<ProductResponse> updateProduct(Long id, ProductRequest productRequest) {
         return productRepository.findById(id)
                 .map(existingProduct -> {
                     updateProductFromRequest(existingProduct, productRequest);
+                    existingProduct.setChangeVersion(nextChangeVersion());
                     Product savedProduct = productRepository.save(existingProduct);
+                    productAutocompleteService.productChanged(savedProduct);
                     return mapToProductResponse(savedProduct);
                 });
     }
@@ -61,11 +83,14 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public boolean deleteProduct(Long id) {
         return productRepository.findById(id)
                 .map(product -> {
                     product.setActive(false);
+                    product.setChangeVersion(nextChangeVersion());
                     productRepository.save(product);
+                    productAutocompleteService.productChanged(product);
                     return true;
                 }).orElse(false);
     }
@@ -78,6 +103,55 @@ public class ProductService {
 
     public Optional<ProductResponse> getProductById(String id) {
         return productRepository.findByIdAndActiveTrue(Long.valueOf(id))
-                .map(this::mapToProductResponse);
+                .map(product -> {
+                    productAutocompleteService.recordView(product.getId());
+                    return mapToProductResponse(product);
+                });
+    }
+
+    public List<ProductSuggestion> autocomplete(String prefix, int limit) {
+        return productAutocompleteService.suggest(prefix, limit);
+    }
+
+    /**
+     * Returns products created, updated or deactivated after {@code since}, oldest
+     * change first. Clients pass {@code nextVersion} back as {@code since} until
+     * {@code hasMore} is false.
+     */
+    @Transactional(readOnly = true)
+    public ProductChangesResponse getChangesSince(long since, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), maxChangesPageSize);
+        List<Product> page = productRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(
+                since, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = page.size() > pageSize;
+        List<ProductResponse> changes = page.stream()
+                .limit(pageSize)
+                .map(this::mapToProductResponse)
+                .collect(Collectors.toList());
+        long nextVersion = changes.isEmpty() ? since : changes.get(changes.size() - 1).getChangeVersion();
+        return new ProductChangesResponse(changes, nextVersion, hasMore);
+    }
+
+    /** Seeds the change sequence row before the instance takes writes, so nextChangeVersion always has a row to lock. */
+    @Override
+    public void afterSingletonsInstantiated() {
+        productChangeSequenceRepository.seed(ProductChangeSequence.CATALOG);
+    }
+
+    /** Gives rows written before change versions existed a version so they show up in the feed. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillChangeVersions() {
+        for (Product product : productRepository.findByChangeVersionIsNullOrderByIdAsc()) {
+            product.setChangeVersion(nextChangeVersion());
+        }
+    }
+
+    private long nextChangeVersion() {
+        ProductChangeSequence sequence = productChangeSequenceRepository.findForUpdate(ProductChangeSequence.CATALOG)
+                .orElseThrow(() -> new IllegalStateException("Product change sequence row is missing"));
+        sequence.setLastVersion(sequence.getLastVersion() + 1);
+        productChangeSequenceRepository.save(sequence);
+        return sequence.getLastVersion();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,344 @@
+package com.layoff.product_service.services;
+
+import com.layoff.product_service.dtos.ProductSuggestion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable prefix index over product names and categories.
+ *
+ * All terms are lower-cased, sorted and packed into a single char array, so the
+ * index is a flattened trie: every node's subtree is a contiguous range of terms
+ * found with a binary search on the prefix. There is one String per suggestion
+ * and no per-node objects, which keeps the footprint to a few dozen bytes per term.
+ * Prefixes that cover more than {@link #HOT_RANGE} terms get their top
+ * {@link #HOT_LIMIT} entries precomputed at build time, so no lookup scans more
+ * than a bounded slice of the term array.
+ * A new instance is built whenever the catalog or popularity counts change and
+ * swapped in atomically, so lookups never take a lock.
+ */
+final class ProductSuggestionIndex {
+
+    static final String TYPE_PRODUCT = "PRODUCT";
+    static final String TYPE_CATEGORY = "CATEGORY";
+
+    static final int HOT_RANGE = 1024;
+    static final int HOT_LIMIT = 50;
+
+    static final ProductSuggestionIndex EMPTY = new Builder().build();
+
+    private final char[] termChars;
+    private final int[] termOffsets;
+    private final int[] termEntries;
+
+    private final String[] entryTexts;
+    private final long[] entryProductIds;
+    private final boolean[] entryCategories;
+    private final long[] entryWeights;
+
+    private Map<String, int[]> hotPrefixes = Map.of();
+
+    private ProductSuggestionIndex(char[] termChars, int[] termOffsets, int[] termEntries,
+                                   String[] entryTexts, long[] entryProductIds,
+                                   boolean[] entryCategories, long[] entryWeights) {
+        this.termChars = termChars;
+        this.termOffsets = termOffsets;
+        this.termEntries = termEntries;
+        this.entryTexts = entryTexts;
+        this.entryProductIds = entryProductIds;
+        this.entryCategories = entryCategories;
+        this.entryWeights = entryWeights;
+    }
+
+    int entryCount() {
+        return entryTexts.length;
+    }
+
+    int termCount() {
+        return termEntries.length;
+    }
+
+    /**
+     * Approximate heap usage of the index, counting array payloads, array headers
+     * and the suggestion strings.
+     */
+    long estimatedBytes() {
+        long bytes = 16L * 7;
+        bytes += 2L * termChars.length;
+        bytes += 4L * termOffsets.length;
+        bytes += 4L * termEntries.length;
+        bytes += 8L * entryProductIds.length + entryCategories.length + 8L * entryWeights.length;
+        for (Map.Entry<String, int[]> hot : hotPrefixes.entrySet()) {
+            bytes += 64 + 2L * hot.getKey().length() + 16 + 4L * hot.getValue().length;
+        }
+        for (String text : entryTexts) {
+            // reference + String header + compact Latin-1 payload
+            bytes += 4 + 24 + 16 + text.length();
+        }
+        return bytes;
+    }
+
+    double bytesPerEntry() {
+        return entryTexts.length == 0 ? 0 : (double) estimatedBytes() / entryTexts.length;
+    }
+
+    /**
+     * Returns at most {@code limit} suggestions whose name, any word of the name,
+     * or category starts with {@code prefix}, highest weight first.
+     */
+    List<ProductSuggestion> suggest(String prefix, int limit) {
+        String needle = normalize(prefix);
+        if (needle.isEmpty() || limit <= 0 || termEntries.length == 0) {
+            return List.of();
+        }
+
+        int[] top;
+        int size;
+        int[] hot = hotPrefixes.get(needle);
+        if (hot != null && limit <= HOT_LIMIT) {
+            top = hot;
+            size = Math.min(limit, hot.length);
+        } else {
+            int from = lowerBound(needle);
+            int to = from;
+            while (to < termEntries.length && startsWith(to, needle)) {
+                to++;
+            }
+            top = new int[limit];
+            size = topEntries(from, to, top);
+        }
+
+        List<ProductSuggestion> suggestions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int entry = top[i];
+            suggestions.add(new ProductSuggestion(
+                    entryTexts[entry],
+                    entryCategories[entry] ? TYPE_CATEGORY : TYPE_PRODUCT,
+                    entryCategories[entry] ? null : entryProductIds[entry],
+                    entryWeights[entry]));
+        }
+        return suggestions;
+    }
+
+    /** Fills {@code top} with the best distinct entries of terms [from, to), best first. */
+    private int topEntries(int from, int to, int[] top) {
+        int size = 0;
+        for (int term = from; term < to; term++) {
+            int entry = termEntries[term];
+            if (contains(top, size, entry)) {
+                continue;
+            }
+            if (size < top.length) {
+                top[size++] = entry;
+                siftUp(top, size - 1);
+            } else if (ranksBefore(entry, top[size - 1])) {
+                top[size - 1] = entry;
+                siftUp(top, size - 1);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Walks the implicit trie over the sorted terms and caches the best entries of
+     * every node whose subtree spans more than {@link #HOT_RANGE} terms.
+     */
+    private void precomputeHotPrefixes() {
+        Map<String, int[]> hot = new HashMap<>();
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, termEntries.length, 0});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int from = range[0];
+            int to = range[1];
+            int depth = range[2];
+            if (to - from <= HOT_RANGE) {
+                continue;
+            }
+            if (depth > 0) {
+                int[] top = new int[HOT_LIMIT];
+                int size = topEntries(from, to, top);
+                hot.put(new String(termChars, termOffsets[from], depth), Arrays.copyOf(top, size));
+            }
+            // terms equal to the prefix sort first; the rest split by their next char
+            int child = from;
+            while (child < to && termOffsets[child + 1] - termOffsets[child] == depth) {
+                child++;
+            }
+            while (child < to) {
+                char next = termChars[termOffsets[child] + depth];
+                int end = child + 1;
+                while (end < to && termChars[termOffsets[end] + depth] == next) {
+                    end++;
+                }
+                ranges.push(new int[]{child, end, depth + 1});
+                child = end;
+            }
+        }
+        hotPrefixes = hot;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase();
+    }
+
+    private int lowerBound(String needle) {
+        int low = 0;
+        int high = termEntries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, needle) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(int term, String needle) {
+        int start = termOffsets[term];
+        int length = termOffsets[term + 1] - start;
+        int common = Math.min(length, needle.length());
+        for (int i = 0; i < common; i++) {
+            int diff = termChars[start + i] - needle.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - needle.length();
+    }
+
+    private boolean startsWith(int term, String needle) {
+        int start = termOffsets[term];
+        if (termOffsets[term + 1] - start < needle.length()) {
+            return false;
+        }
+        for (int i = 0; i < needle.length(); i++) {
+            if (termChars[start + i] != needle.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] entries, int size, int entry) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i] == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Keeps the (small) result array ordered by insertion sort. */
+    private void siftUp(int[] entries, int index) {
+        while (index > 0 && ranksBefore(entries[index], entries[index - 1])) {
+            int swap = entries[index];
+            entries[index] = entries[index - 1];
+            entries[index - 1] = swap;
+            index--;
+        }
+    }
+
+    private boolean ranksBefore(int left, int right) {
+        if (entryWeights[left] != entryWeights[right]) {
+            return entryWeights[left] > entryWeights[right];
+        }
+        if (entryTexts[left].length() != entryTexts[right].length()) {
+            return entryTexts[left].length() < entryTexts[right].length();
+        }
+        return entryTexts[left].compareTo(entryTexts[right]) < 0;
+    }
+
+    static final class Builder {
+
+        private final List<String> texts = new ArrayList<>();
+        private final List<Long> productIds = new ArrayList<>();
+        private final List<Boolean> categories = new ArrayList<>();
+        private final List<Long> weights = new ArrayList<>();
+        private final List<String> terms = new ArrayList<>();
+        private final List<Integer> termEntries = new ArrayList<>();
+
+        /** Indexes the full name and every word suffix, so "mou" finds "Wireless Mouse". */
+        Builder addProduct(long productId, String name, long weight) {
+            String normalized = normalize(name);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            int entry = addEntry(name.trim(), productId, false, weight);
+            addTerm(normalized, entry);
+            for (int i = 1; i < normalized.length(); i++) {
+                if (Character.isWhitespace(normalized.charAt(i - 1)) && !Character.isWhitespace(normalized.charAt(i))) {
+                    addTerm(normalized.substring(i), entry);
+                }
+            }
+            return this;
+        }
+
+        Builder addCategory(String category, long weight) {
+            String normalized = normalize(category);
+            if (!normalized.isEmpty()) {
+                addTerm(normalized, addEntry(category.trim(), -1L, true, weight));
+            }
+            return this;
+        }
+
+        private int addEntry(String text, long productId, boolean category, long weight) {
+            texts.add(text);
+            productIds.add(productId);
+            categories.add(category);
+            weights.add(weight);
+            return texts.size() - 1;
+        }
+
+        private void addTerm(String term, int entry) {
+            terms.add(term);
+            termEntries.add(entry);
+        }
+
+        ProductSuggestionIndex build() {
+            Integer[] order = new Integer[terms.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> terms.get(a).compareTo(terms.get(b)));
+
+            int totalChars = 0;
+            for (String term : terms) {
+                totalChars += term.length();
+            }
+            char[] chars = new char[totalChars];
+            int[] offsets = new int[order.length + 1];
+            int[] entries = new int[order.length];
+            int position = 0;
+            for (int i = 0; i < order.length; i++) {
+                String term = terms.get(order[i]);
+                term.getChars(0, term.length(), chars, position);
+                offsets[i] = position;
+                entries[i] = termEntries.get(order[i]);
+                position += term.length();
+            }
+            offsets[order.length] = position;
+
+            long[] ids = new long[texts.size()];
+            boolean[] isCategory = new boolean[texts.size()];
+            long[] entryWeights = new long[texts.size()];
+            for (int i = 0; i < texts.size(); i++) {
+                ids[i] = productIds.get(i);
+                isCategory[i] = categories.get(i);
+                entryWeights[i] = weights.get(i);
+            }
+            ProductSuggestionIndex index = new ProductSuggestionIndex(chars, offsets, entries,
+                    texts.toArray(new String[0]), ids, isCategory, entryWeights);
+            index.precomputeHotPrefixes();
+            return index;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.layoff.product_service.services;
+
+import com.layoff.product_service.models.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsProductsThroughMappedRead() throws IOException {
+        Product product = new Product();
+        product.setId(7L);
+        product.setChangeVersion(42L);
+        product.setName("Laptop Pro 15\"");
+        product.setCategory("Électronique");
+        product.setPrice(new BigDecimal("1299.99"));
+        product.setStockQuantity(50);
+
+        Path path = directory.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(path, 42L, List.of(product));
+        CatalogSnapshotFile.Snapshot snapshot = CatalogSnapshotFile.read(path);
+
+        assertEquals(42L, snapshot.changeVersion());
+        Product loaded = snapshot.products().get(0);
+        assertEquals(product.getName(), loaded.getName());
+        assertEquals(product.getCategory(), loaded.getCategory());
+        assertEquals(product.getPrice(), loaded.getPrice());
+        assertEquals(50, loaded.getStockQuantity());
+        assertNull(loaded.getDescription());
+    }
+
+    @Test
+    void rejectsCorruptedFile() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(path, 1L, List.of());
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[10] ^= 0x1;
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.read(path));
+    }
+}
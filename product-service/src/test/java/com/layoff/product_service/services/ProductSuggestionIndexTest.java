@@ -0,0 +1,76 @@
+package com.layoff.product_service.services;
+
+import com.layoff.product_service.dtos.ProductSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestionIndexTest {
+
+    @Test
+    void matchesNameWordsAndCategoriesByWeight() {
+        ProductSuggestionIndex index = new ProductSuggestionIndex.Builder()
+                .addProduct(1L, "Wireless Mouse", 5)
+                .addProduct(2L, "Wireless Charger", 9)
+                .addProduct(3L, "Laptop Stand", 1)
+                .addCategory("Electronics", 14)
+                .build();
+
+        List<ProductSuggestion> wireless = index.suggest("WIRE", 10);
+        assertEquals(List.of("Wireless Charger", "Wireless Mouse"),
+                wireless.stream().map(ProductSuggestion::getText).toList());
+
+        List<ProductSuggestion> mouse = index.suggest("mou", 10);
+        assertEquals(1, mouse.size());
+        assertEquals(1L, mouse.get(0).getProductId());
+
+        List<ProductSuggestion> category = index.suggest("elec", 10);
+        assertEquals(ProductSuggestionIndex.TYPE_CATEGORY, category.get(0).getType());
+        assertTrue(index.suggest("zzz", 10).isEmpty());
+        assertTrue(index.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void largeIndexReturnsTheHeaviestMatchesForHotAndColdPrefixes() {
+        Random random = new Random(42);
+        String[] words = {"laptop", "wireless", "mouse", "keyboard", "monitor", "cable", "stand",
+                "usb", "charger", "speaker", "headset", "webcam", "hub", "sleeve", "drive"};
+        ProductSuggestionIndex.Builder builder = new ProductSuggestionIndex.Builder();
+        Map<String, Long> weights = new HashMap<>();
+        for (long id = 1; id <= 20_000; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + Long.toString(id, 36);
+            long weight = random.nextInt(10_000);
+            builder.addProduct(id, name, weight);
+            weights.put(name, weight);
+        }
+        ProductSuggestionIndex index = builder.build();
+
+        // "l" and "wi" span far more than HOT_RANGE terms and are served precomputed; the rest are scanned
+        for (String prefix : List.of("l", "wi", "mou", "usb c", "1a", "zz")) {
+            for (int limit : List.of(10, ProductSuggestionIndex.HOT_LIMIT + 10)) {
+                assertEquals(expectedTop(weights, prefix, limit),
+                        index.suggest(prefix, limit).stream().map(ProductSuggestion::getText).toList(),
+                        "prefix '" + prefix + "', limit " + limit);
+            }
+        }
+    }
+
+    /** Brute force: names whose full text or any word suffix starts with the prefix, ranked like the index. */
+    private static List<String> expectedTop(Map<String, Long> weights, String prefix, int limit) {
+        return weights.keySet().stream()
+                .filter(name -> name.startsWith(prefix) || name.contains(" " + prefix))
+                .sorted(Comparator.comparingLong((String name) -> weights.get(name)).reversed()
+                        .thenComparingInt(String::length)
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(limit)
+                .toList();
+    }
+}
@@ -1,13 +1,35 @@
 package com.layoff.user_service;
 
+import com.layoff.user_service.dtos.UserChangedEvent;
+import com.layoff.user_service.services.EmailAvailabilityService;
+import com.layoff.user_service.services.UserProfileCache;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.function.Consumer;
 
 @SpringBootApplication
+@EnableScheduling
 public class UserServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(UserServiceApplication.class, args);
 	}
 
+	// Keeps each instance's email filter and profile cache in step with changes made on other instances
+	@Bean
+	public Consumer<UserChangedEvent> userChanges(EmailAvailabilityService emailAvailabilityService,
+												  UserProfileCache userProfileCache) {
+		return event -> {
+			if (event.getUser() != null) {
+				emailAvailabilityService.emailRegistered(event.getUser().getEmail());
+			}
+			if (UserChangedEvent.UPDATED.equals(event.getChangeType())) {
+				userProfileCache.evict(event.getUserId());
+			}
+		};
+	}
+
 }
@@ -1,14 +1,30 @@
 package com.layoff.user_service.controllers;
 
+import com.layoff.user_service.dtos.BatchUserRequest;
+import com.layoff.user_service.dtos.BulkProvisioningResponse;
+import com.layoff.user_service.dtos.BulkUserRequest;
+import com.layoff.user_service.dtos.EmailAvailabilityResponse;
+import com.layoff.user_service.dtos.RegistrationResponse;
 import com.layoff.user_service.dtos.UserRequest;
 import com.layoff.user_service.dtos.UserResponse;
+import com.layoff.user_service.services.BulkProvisioningService;
+import com.layoff.user_service.services.EmailAvailabilityService;
+import com.layoff.user_service.services.RegistrationService;
+import com.layoff.user_service.services.UserProfileCache;
 import com.layoff.user_service.services.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -16,22 +32,121 @@ import java.util.List;
 @Slf4j
 public class UserController {
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     private final UserService userService;
+    private final BulkProvisioningService bulkProvisioningService;
+    private final RegistrationService registrationService;
+    private final EmailAvailabilityService emailAvailabilityService;
+
     @PostMapping
     public ResponseEntity<String> createUser(@RequestBody UserRequest userRequest) {
         userService.addUser(userRequest);
         return ResponseEntity.ok("User created successfully");
     }
 
+    @PostMapping("/registrations")
+    public ResponseEntity<RegistrationResponse> registerUser(@RequestBody UserRequest userRequest) {
+        try {
+            RegistrationResponse registration = registrationService.submit(userRequest);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/users/registrations/" + registration.getRegistrationId()))
+                    .body(registration);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected registration: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Rejected registration: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected registration: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    @GetMapping("/registrations/{registrationId}")
+    public ResponseEntity<RegistrationResponse> getRegistration(@PathVariable String registrationId) {
+        return registrationService.getRegistration(registrationId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/email-availability")
+    public ResponseEntity<EmailAvailabilityResponse> checkEmailAvailability(@RequestParam String email) {
+        if (email.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(new EmailAvailabilityResponse(email, emailAvailabilityService.isAvailable(email)));
+    }
+
+    /**
+     * Lists users as a JSON array. With {@code page} and/or {@code size} only that
+     * page is returned and the total is in the X-Total-Count header.
+     */
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserResponse>> getUsers(@RequestParam(required = false) Integer page,
+                                                       @RequestParam(required = false) Integer size,
+                                                       @RequestParam(required = false) String sort) {
+        try {
+            if (page == null && size == null) {
+                return ResponseEntity.ok(userService.getAllUsers(sort));
+            }
+            Page<UserResponse> users = userService.getUsers(page == null ? 0 : page,
+                    size == null ? DEFAULT_PAGE_SIZE : size, sort);
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(users.getTotalElements()))
+                    .body(users.getContent());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected user listing request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserResponse>> getUsersByIds(@RequestBody BatchUserRequest batchUserRequest) {
+        try {
+            return ResponseEntity.ok(userService.getUsersByIds(batchUserRequest.getIds()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected batch user lookup: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = userService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
+
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponse> getUserById(@PathVariable String id) {
-        UserResponse user = userService.getUserById(id);
-        return ResponseEntity.ok(user);
+    public ResponseEntity<UserResponse> getUserById(@PathVariable String id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        UserProfileCache.CachedUser cached = userService.getCachedUser(id);
+        if (matches(ifNoneMatch, cached.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(cached.etag()).body(cached.user());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @PutMapping("/{id}")
@@ -40,4 +155,23 @@ public class UserController {
         return ResponseEntity.ok(updatedUser);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkProvisioningResponse> provisionUsers(@RequestBody BulkUserRequest bulkUserRequest) {
+        try {
+            BulkProvisioningResponse job = bulkProvisioningService.startOrResume(bulkUserRequest);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/users/bulk/" + job.getJobId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected bulk provisioning request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<BulkProvisioningResponse> getProvisioningJob(@PathVariable String jobId) {
+        return bulkProvisioningService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
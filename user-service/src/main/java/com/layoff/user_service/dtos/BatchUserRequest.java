@@ -0,0 +1,10 @@
+package com.layoff.user_service.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchUserRequest {
+    private List<String> ids;
+}
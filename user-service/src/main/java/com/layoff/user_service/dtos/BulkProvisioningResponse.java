@@ -0,0 +1,17 @@
+package com.layoff.user_service.dtos;
+
+import com.layoff.user_service.models.ProvisioningJobStatus;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkProvisioningResponse {
+    private String jobId;
+    private ProvisioningJobStatus status;
+    private Integer total;
+    private Integer processed;
+    private Integer succeeded;
+    private Integer failed;
+    private List<ProvisioningResultDTO> results;
+}
@@ -0,0 +1,11 @@
+package com.layoff.user_service.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkUserRequest {
+    private String jobId;
+    private List<UserRequest> users;
+}
@@ -0,0 +1,13 @@
+package com.layoff.user_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailAvailabilityResponse {
+    private String email;
+    private boolean available;
+}
@@ -0,0 +1,13 @@
+package com.layoff.user_service.dtos;
+
+import com.layoff.user_service.models.ProvisioningResultStatus;
+import lombok.Data;
+
+@Data
+public class ProvisioningResultDTO {
+    private Integer index;
+    private String username;
+    private ProvisioningResultStatus status;
+    private String userId;
+    private String error;
+}
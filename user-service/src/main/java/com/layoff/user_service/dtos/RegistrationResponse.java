@@ -0,0 +1,17 @@
+package com.layoff.user_service.dtos;
+
+import com.layoff.user_service.models.RegistrationStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class RegistrationResponse {
+    private String registrationId;
+    private RegistrationStatus status;
+    private Integer attempts;
+    private String userId;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
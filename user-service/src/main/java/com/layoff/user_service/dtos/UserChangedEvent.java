@@ -0,0 +1,20 @@
+package com.layoff.user_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangedEvent {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+
+    private String userId;
+    private String changeType;
+    private UserResponse user;
+    private LocalDateTime changedAt;
+}
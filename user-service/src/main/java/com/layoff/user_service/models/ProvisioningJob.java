@@ -0,0 +1,43 @@
+package com.layoff.user_service.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one bulk provisioning run. {@code checkpoint} is the index of the
+ * first request not yet committed; a resubmitted job continues from there.
+ * {@code heartbeatAt} is refreshed by the instance running the job, so a RUNNING
+ * job whose heartbeat is older than the lease has lost its worker. {@code version}
+ * makes claiming a job a compare-and-set across instances, and {@code payloadHash}
+ * ties a resume to the payload the job was started with.
+ */
+@Data
+@Entity(name = "provisioning_jobs")
+public class ProvisioningJob {
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    private ProvisioningJobStatus status;
+    private Integer total;
+    private Integer checkpoint = 0;
+    private Integer succeeded = 0;
+    private Integer failed = 0;
+    private LocalDateTime heartbeatAt;
+    @Column(length = 64)
+    private String payloadHash;
+
+    // the default gives rows from before versioning a value, so they can still be resumed
+    @Version
+    @Column(columnDefinition = "bigint not null default 0")
+    private Long version;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
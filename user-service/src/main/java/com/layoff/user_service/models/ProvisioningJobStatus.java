@@ -0,0 +1,5 @@
+package com.layoff.user_service.models;
+
+public enum ProvisioningJobStatus {
+    RUNNING, INTERRUPTED, COMPLETED
+}
@@ -0,0 +1,24 @@
+package com.layoff.user_service.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+@Entity(name = "provisioning_results")
+@Table(indexes = @Index(name = "idx_provisioning_results_job", columnList = "jobId, itemIndex"))
+public class ProvisioningResult {
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String jobId;
+    private Integer itemIndex;
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    private ProvisioningResultStatus status;
+    private String userId;
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+}
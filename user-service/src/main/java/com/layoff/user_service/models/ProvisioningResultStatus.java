@@ -0,0 +1,5 @@
+package com.layoff.user_service.models;
+
+public enum ProvisioningResultStatus {
+    CREATED, ALREADY_EXISTS, CONFLICT, EMAIL_TAKEN, FAILED
+}
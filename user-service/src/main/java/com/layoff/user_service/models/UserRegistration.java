@@ -0,0 +1,38 @@
+package com.layoff.user_service.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One asynchronous registration request. Only the outcome is stored here; the
+ * submitted payload, including the password, stays in memory until it is processed.
+ * {@code heartbeatAt} is refreshed by the instance holding that payload.
+ */
+@Data
+@Entity(name = "user_registrations")
+@Table(indexes = @Index(name = "idx_user_registrations_status", columnList = "status"))
+public class UserRegistration {
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    private String id;
+    private String username;
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    private RegistrationStatus status;
+    private Integer attempts = 0;
+    private String userId;
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+    private LocalDateTime heartbeatAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
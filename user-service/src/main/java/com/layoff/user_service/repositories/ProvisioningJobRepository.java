@@ -0,0 +1,28 @@
+package com.layoff.user_service.repositories;
+
+import com.layoff.user_service.models.ProvisioningJob;
+import com.layoff.user_service.models.ProvisioningJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProvisioningJobRepository extends JpaRepository<ProvisioningJob, String> {
+    List<ProvisioningJob> findByStatus(ProvisioningJobStatus status);
+
+    @Query("SELECT j FROM provisioning_jobs j WHERE j.status = :status AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :cutoff)")
+    List<ProvisioningJob> findByStatusWithHeartbeatBefore(@Param("status") ProvisioningJobStatus status,
+                                                          @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE provisioning_jobs j SET j.heartbeatAt = :now WHERE j.id IN :ids")
+    int heartbeat(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,12 @@
+package com.layoff.user_service.repositories;
+
+import com.layoff.user_service.models.ProvisioningResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProvisioningResultRepository extends JpaRepository<ProvisioningResult, Long> {
+    List<ProvisioningResult> findByJobIdOrderByItemIndexAsc(String jobId);
+}
@@ -0,0 +1,75 @@
+package com.layoff.user_service.repositories;
+
+import com.layoff.user_service.dtos.AddressDTO;
+import com.layoff.user_service.dtos.UserRequest;
+import com.layoff.user_service.models.UserRole;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JDBC batch inserts of {@code users} and {@code addresses} rows for bulk provisioning.
+ * JPA cannot batch these: users have assigned ids (so save() merges with a SELECT
+ * first) and addresses use IDENTITY keys.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserBatchWriter {
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, keycloak_id, first_name, last_name, email, phone, role, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ADDRESS =
+            "INSERT INTO addresses (user_id, street, city, state, zip_code, country) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Inserts the given users (keyed by Keycloak id) and their addresses, skipping ids
+     * that already have a row so a replayed chunk is harmless.
+     *
+     * @return the ids that were inserted
+     */
+    public Set<String> insertUsers(Map<String, UserRequest> usersById) {
+        if (usersById.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> existing = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", usersById.keySet()),
+                String.class));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> userRows = new ArrayList<>();
+        List<Object[]> addressRows = new ArrayList<>();
+        Set<String> inserted = new HashSet<>();
+        usersById.forEach((id, request) -> {
+            if (existing.contains(id)) {
+                return;
+            }
+            inserted.add(id);
+            userRows.add(new Object[]{id, id, request.getFirstName(), request.getLastName(),
+                    request.getEmail(), request.getPhone(), UserRole.CUSTOMER.ordinal(), now});
+            AddressDTO address = request.getAddress();
+            if (address != null) {
+                addressRows.add(new Object[]{id, address.getStreet(), address.getCity(),
+                        address.getState(), address.getZipCode(), address.getCountry()});
+            }
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_USER, userRows);
+        jdbcTemplate.batchUpdate(INSERT_ADDRESS, addressRows);
+        return inserted;
+    }
+}
@@ -0,0 +1,28 @@
+package com.layoff.user_service.repositories;
+
+import com.layoff.user_service.models.RegistrationStatus;
+import com.layoff.user_service.models.UserRegistration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserRegistrationRepository extends JpaRepository<UserRegistration, String> {
+    List<UserRegistration> findByStatusIn(Collection<RegistrationStatus> statuses);
+
+    @Query("SELECT r FROM user_registrations r WHERE r.status IN :statuses AND (r.heartbeatAt IS NULL OR r.heartbeatAt < :cutoff)")
+    List<UserRegistration> findByStatusInWithHeartbeatBefore(@Param("statuses") Collection<RegistrationStatus> statuses,
+                                                             @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE user_registrations r SET r.heartbeatAt = :now WHERE r.id IN :ids")
+    int heartbeat(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+}
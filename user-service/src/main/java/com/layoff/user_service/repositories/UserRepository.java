@@ -1,9 +1,38 @@
 package com.layoff.user_service.repositories;
 
 import com.layoff.user_service.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
+
+    @Query(value = "SELECT u FROM users u LEFT JOIN FETCH u.address",
+            countQuery = "SELECT COUNT(u) FROM users u")
+    Page<User> findAllWithAddress(Pageable pageable);
+
+    @Query("SELECT u FROM users u LEFT JOIN FETCH u.address WHERE u.id IN :ids")
+    List<User> findAllWithAddressByIdIn(@Param("ids") Collection<String> ids);
+
+    // MySQL Connector/J only streams rows instead of buffering the whole result for this fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u FROM users u LEFT JOIN FETCH u.address")
+    Stream<User> streamAllWithAddress();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.email FROM users u WHERE u.email IS NOT NULL")
+    Stream<String> streamAllEmails();
+
+    boolean existsByEmail(String email);
 }
@@ -0,0 +1,447 @@
+package com.layoff.user_service.services;
+
+import com.layoff.user_service.dtos.AddressDTO;
+import com.layoff.user_service.dtos.BulkProvisioningResponse;
+import com.layoff.user_service.dtos.BulkUserRequest;
+import com.layoff.user_service.dtos.ProvisioningResultDTO;
+import com.layoff.user_service.dtos.UserRequest;
+import com.layoff.user_service.dtos.UserResponse;
+import com.layoff.user_service.models.ProvisioningJob;
+import com.layoff.user_service.models.ProvisioningJobStatus;
+import com.layoff.user_service.models.ProvisioningResult;
+import com.layoff.user_service.models.ProvisioningResultStatus;
+import com.layoff.user_service.models.UserRole;
+import com.layoff.user_service.repositories.ProvisioningJobRepository;
+import com.layoff.user_service.repositories.ProvisioningResultRepository;
+import com.layoff.user_service.repositories.UserBatchWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates many users in one job.
+ *
+ * Requests are processed in chunks of {@code users.bulk.chunk-size}. Inside a chunk
+ * the Keycloak create and role-mapping calls are pipelined on the Keycloak worker
+ * pool, so in-flight calls are bounded by both the chunk and the connection pool.
+ * Each chunk's user/address rows, per-user results and the job checkpoint are
+ * committed together. Passwords are never stored, so a job whose instance stopped
+ * heartbeating for {@code users.bulk.lease-ms} is marked INTERRUPTED by any instance
+ * and resumes from its checkpoint when the same payload is posted again with the
+ * same {@code jobId}. The job row is versioned, so only one instance can claim it
+ * and a run that was taken over stops at its next checkpoint.
+ */
+@Service
+public class BulkProvisioningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkProvisioningService.class);
+
+    private static final String DEFAULT_ROLE = "CUSTOMER";
+
+    private record Outcome(int index, String username, ProvisioningResultStatus status, String userId, String error) {}
+
+    private final KeyCloakAdminService keyCloakAdminService;
+    private final UserBatchWriter userBatchWriter;
+    private final EmailAvailabilityService emailAvailabilityService;
+    private final UserEventPublisher userEventPublisher;
+    private final ProvisioningJobRepository provisioningJobRepository;
+    private final ProvisioningResultRepository provisioningResultRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long leaseMs;
+    private final ExecutorService jobExecutor;
+    private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+
+    public BulkProvisioningService(KeyCloakAdminService keyCloakAdminService,
+                                   UserBatchWriter userBatchWriter,
+                                   EmailAvailabilityService emailAvailabilityService,
+                                   UserEventPublisher userEventPublisher,
+                                   ProvisioningJobRepository provisioningJobRepository,
+                                   ProvisioningResultRepository provisioningResultRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${users.bulk.chunk-size:50}") int chunkSize,
+                                   @Value("${users.bulk.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                   @Value("${users.bulk.lease-ms:60000}") long leaseMs) {
+        this.keyCloakAdminService = keyCloakAdminService;
+        this.userBatchWriter = userBatchWriter;
+        this.emailAvailabilityService = emailAvailabilityService;
+        this.userEventPublisher = userEventPublisher;
+        this.provisioningJobRepository = provisioningJobRepository;
+        this.provisioningResultRepository = provisioningResultRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.leaseMs = leaseMs;
+        this.jobExecutor = Executors.newFixedThreadPool(maxConcurrentJobs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${users.bulk.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (!activeJobs.isEmpty()) {
+            provisioningJobRepository.heartbeat(Set.copyOf(activeJobs), LocalDateTime.now());
+        }
+    }
+
+    /** RUNNING jobs nobody has heartbeated for a lease lost their in-memory payload with their instance. */
+    @Scheduled(initialDelayString = "${users.bulk.heartbeat-ms:10000}", fixedDelayString = "${users.bulk.lease-ms:60000}")
+    public void markInterruptedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(leaseMs));
+        for (ProvisioningJob job : provisioningJobRepository.findByStatusWithHeartbeatBefore(
+                ProvisioningJobStatus.RUNNING, cutoff)) {
+            if (activeJobs.contains(job.getId())) {
+                continue;
+            }
+            logger.warn("Bulk provisioning job {} lost its worker at {}/{}", job.getId(), job.getCheckpoint(), job.getTotal());
+            job.setStatus(ProvisioningJobStatus.INTERRUPTED);
+            try {
+                provisioningJobRepository.save(job);
+            } catch (OptimisticLockingFailureException e) {
+                // another instance marked or resumed it first
+            }
+        }
+    }
+
+    /**
+     * Starts a new job, or resumes an interrupted one with the same id and payload.
+     * A job that is already running or completed is returned as is. Claiming the job
+     * is an optimistic-locked write, so only one instance can move it to RUNNING.
+     */
+    public BulkProvisioningResponse startOrResume(BulkUserRequest request) {
+        List<UserRequest> users = request.getUsers() == null ? List.of() : request.getUsers();
+        String jobId = request.getJobId() != null ? request.getJobId() : UUID.randomUUID().toString();
+        String payloadHash = payloadHash(users);
+
+        ProvisioningJob job = provisioningJobRepository.findById(jobId).orElseGet(() -> {
+            ProvisioningJob created = new ProvisioningJob();
+            created.setId(jobId);
+            created.setTotal(users.size());
+            created.setPayloadHash(payloadHash);
+            created.setStatus(ProvisioningJobStatus.INTERRUPTED);
+            return created;
+        });
+        if (job.getStatus() == ProvisioningJobStatus.COMPLETED || activeJobs.contains(jobId) || isLeased(job)) {
+            return toResponse(job, false);
+        }
+        if (job.getTotal() != users.size()
+                || (job.getPayloadHash() != null && !job.getPayloadHash().equals(payloadHash))) {
+            throw new IllegalArgumentException("Job " + jobId + " was started with a different list of users");
+        }
+        if (!activeJobs.add(jobId)) {
+            return toResponse(job, false);
+        }
+
+        job.setStatus(ProvisioningJobStatus.RUNNING);
+        job.setPayloadHash(payloadHash);
+        job.setHeartbeatAt(LocalDateTime.now());
+        ProvisioningJob running;
+        try {
+            running = provisioningJobRepository.saveAndFlush(job);
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // another instance claimed or created the job between our read and write
+            activeJobs.remove(jobId);
+            return provisioningJobRepository.findById(jobId)
+                    .map(current -> toResponse(current, false))
+                    .orElseThrow(() -> e);
+        }
+        jobExecutor.execute(() -> run(running, users));
+        return toResponse(running, false);
+    }
+
+    /**
+     * Identifies a payload without storing passwords: every field except the
+     * password, in order, hashed with SHA-256.
+     */
+    static String payloadHash(List<UserRequest> users) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (UserRequest user : users) {
+            List<String> fields = new ArrayList<>();
+            if (user != null) {
+                fields.addAll(Arrays.asList(user.getUsername(), user.getEmail(), user.getFirstName(),
+                        user.getLastName(), user.getPhone()));
+                AddressDTO address = user.getAddress();
+                if (address != null) {
+                    fields.addAll(Arrays.asList(address.getStreet(), address.getCity(), address.getState(),
+                            address.getZipCode(), address.getCountry()));
+                }
+            }
+            for (String field : fields) {
+                digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            digest.update((byte) 1);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Whether another instance is still running the job. */
+    private boolean isLeased(ProvisioningJob job) {
+        return job.getStatus() == ProvisioningJobStatus.RUNNING
+                && job.getHeartbeatAt() != null
+                && job.getHeartbeatAt().isAfter(LocalDateTime.now().minus(Duration.ofMillis(leaseMs)));
+    }
+
+    public Optional<BulkProvisioningResponse> getJob(String jobId) {
+        return provisioningJobRepository.findById(jobId).map(job -> toResponse(job, true));
+    }
+
+    private void run(ProvisioningJob job, List<UserRequest> users) {
+        try {
+            logger.info("Bulk provisioning job {} starting at {}/{}", job.getId(), job.getCheckpoint(), job.getTotal());
+            while (job.getCheckpoint() < users.size()) {
+                int from = job.getCheckpoint();
+                int to = Math.min(from + chunkSize, users.size());
+                List<Outcome> outcomes = provisionChunk(job.getId(), users, from, to);
+                commitChunk(job, users, outcomes, to);
+            }
+            job.setStatus(ProvisioningJobStatus.COMPLETED);
+            job.setHeartbeatAt(LocalDateTime.now());
+            provisioningJobRepository.saveAndFlush(job);
+            logger.info("Bulk provisioning job {} completed: {} succeeded, {} failed",
+                    job.getId(), job.getSucceeded(), job.getFailed());
+        } catch (OptimisticLockingFailureException e) {
+            // the job was marked interrupted, and possibly resumed, by another instance
+            logger.warn("Bulk provisioning job {} was taken over at {}, stopping this run", job.getId(), job.getCheckpoint());
+        } catch (RuntimeException e) {
+            logger.error("Bulk provisioning job {} stopped at {}: {}", job.getId(), job.getCheckpoint(), e.getMessage(), e);
+            job.setStatus(ProvisioningJobStatus.INTERRUPTED);
+            try {
+                provisioningJobRepository.save(job);
+            } catch (OptimisticLockingFailureException ignored) {
+                // already taken over
+            }
+        } finally {
+            activeJobs.remove(job.getId());
+        }
+    }
+
+    private List<Outcome> provisionChunk(String jobId, List<UserRequest> users, int from, int to) {
+        String token = keyCloakAdminService.getAdminAccessToken();
+        List<CompletableFuture<Outcome>> inFlight = new ArrayList<>(to - from);
+        for (int index = from; index < to; index++) {
+            inFlight.add(provision(jobId, token, index, users.get(index)));
+        }
+        return inFlight.stream().map(CompletableFuture::join).toList();
+    }
+
+    private CompletableFuture<Outcome> provision(String jobId, String token, int index, UserRequest user) {
+        String invalid = validate(user);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(
+                    new Outcome(index, user.getUsername(), ProvisioningResultStatus.FAILED, null, invalid));
+        }
+        return keyCloakAdminService.createUserAsync(token, user, provisioningRef(jobId))
+                .thenApply(userId -> new Outcome(index, user.getUsername(), ProvisioningResultStatus.CREATED, userId, null))
+                .exceptionallyCompose(error -> {
+                    if (!isConflict(error)) {
+                        return CompletableFuture.failedFuture(error);
+                    }
+                    // only a user this job created in an earlier, interrupted run is taken over
+                    String existingId = keyCloakAdminService.findAdoptableUserId(token, user, provisioningRef(jobId));
+                    if (existingId != null) {
+                        return CompletableFuture.completedFuture(new Outcome(index, user.getUsername(),
+                                ProvisioningResultStatus.ALREADY_EXISTS, existingId, null));
+                    }
+                    return CompletableFuture.completedFuture(
+                            keyCloakAdminService.usernameExists(token, user.getUsername())
+                                    ? new Outcome(index, user.getUsername(), ProvisioningResultStatus.CONFLICT, null,
+                                            "Username " + user.getUsername() + " belongs to an existing account")
+                                    : new Outcome(index, user.getUsername(), ProvisioningResultStatus.EMAIL_TAKEN, null,
+                                            "Email " + user.getEmail() + " belongs to an existing account"));
+                })
+                .thenCompose(outcome -> outcome.userId() == null
+                        ? CompletableFuture.completedFuture(outcome)
+                        : keyCloakAdminService
+                                .assignRealmRoleToUserAsync(user.getUsername(), DEFAULT_ROLE, outcome.userId())
+                                .thenApply(ignored -> outcome))
+                .exceptionally(error -> new Outcome(index, user.getUsername(),
+                        ProvisioningResultStatus.FAILED, null, rootMessage(error)));
+    }
+
+    private void commitChunk(ProvisioningJob job, List<UserRequest> users, List<Outcome> outcomes, int nextCheckpoint) {
+        Map<String, UserRequest> toPersist = new LinkedHashMap<>();
+        for (Outcome outcome : outcomes) {
+            if (isProvisioned(outcome.status())) {
+                toPersist.put(outcome.userId(), users.get(outcome.index()));
+            }
+        }
+        Map<String, String> persistErrors = persistUsers(toPersist);
+        toPersist.forEach((id, user) -> {
+            if (!persistErrors.containsKey(id)) {
+                emailAvailabilityService.emailRegistered(user.getEmail());
+                userEventPublisher.userCreated(toUserResponse(id, user));
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ProvisioningResult> results = new ArrayList<>(outcomes.size());
+            int succeeded = 0;
+            for (Outcome outcome : outcomes) {
+                ProvisioningResult result = new ProvisioningResult();
+                result.setJobId(job.getId());
+                result.setItemIndex(outcome.index());
+                result.setUsername(outcome.username());
+                result.setUserId(outcome.userId());
+                String persistError = outcome.userId() == null ? null : persistErrors.get(outcome.userId());
+                if (persistError != null) {
+                    result.setStatus(ProvisioningResultStatus.FAILED);
+                    result.setError(persistError);
+                } else {
+                    result.setStatus(outcome.status());
+                    result.setError(outcome.error());
+                }
+                if (isProvisioned(result.getStatus())) {
+                    succeeded++;
+                }
+                results.add(result);
+            }
+            provisioningResultRepository.saveAll(results);
+            job.setSucceeded(job.getSucceeded() + succeeded);
+            job.setFailed(job.getFailed() + outcomes.size() - succeeded);
+            job.setCheckpoint(nextCheckpoint);
+            // the in-memory job would otherwise write back an older heartbeat
+            job.setHeartbeatAt(LocalDateTime.now());
+            // save merges into a copy; carry its version over so the next checkpoint is not rejected as stale
+            job.setVersion(provisioningJobRepository.saveAndFlush(job).getVersion());
+        });
+    }
+
+    /**
+     * Batch-inserts the chunk's rows. If the batch hits a constraint (e.g. a duplicate
+     * email), the rows are retried one by one so only the offending users fail.
+     *
+     * @return an error message per user id that could not be stored
+     */
+    private Map<String, String> persistUsers(Map<String, UserRequest> usersById) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> userBatchWriter.insertUsers(usersById));
+            return Map.of();
+        } catch (DataIntegrityViolationException batchFailure) {
+            Map<String, String> errors = new LinkedHashMap<>();
+            usersById.forEach((id, user) -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> userBatchWriter.insertUsers(Map.of(id, user)));
+                } catch (DataIntegrityViolationException e) {
+                    errors.put(id, rootMessage(e.getMostSpecificCause()));
+                }
+            });
+            return errors;
+        }
+    }
+
+    private static String provisioningRef(String jobId) {
+        return "bulk:" + jobId;
+    }
+
+    private static boolean isProvisioned(ProvisioningResultStatus status) {
+        return status == ProvisioningResultStatus.CREATED || status == ProvisioningResultStatus.ALREADY_EXISTS;
+    }
+
+    private static UserResponse toUserResponse(String id, UserRequest user) {
+        UserResponse response = new UserResponse();
+        response.setId(id);
+        response.setKeycloakId(id);
+        response.setFirstName(user.getFirstName());
+        response.setLastName(user.getLastName());
+        response.setEmail(user.getEmail());
+        response.setPhone(user.getPhone());
+        response.setAddress(user.getAddress());
+        response.setRole(UserRole.CUSTOMER);
+        return response;
+    }
+
+    private static String validate(UserRequest user) {
+        if (user == null) {
+            return "Missing user entry";
+        }
+        if (isBlank(user.getUsername()) || isBlank(user.getEmail()) || isBlank(user.getPassword())) {
+            return "username, email and password are required";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean isConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException http && http.getStatusCode() == HttpStatus.CONFLICT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        String message = String.valueOf(cause.getMessage());
+        return message.length() > ProvisioningResult.MAX_ERROR_LENGTH
+                ? message.substring(0, ProvisioningResult.MAX_ERROR_LENGTH)
+                : message;
+    }
+
+    private BulkProvisioningResponse toResponse(ProvisioningJob job, boolean includeResults) {
+        BulkProvisioningResponse response = new BulkProvisioningResponse();
+        response.setJobId(job.getId());
+        response.setStatus(job.getStatus());
+        response.setTotal(job.getTotal());
+        response.setProcessed(job.getCheckpoint());
+        response.setSucceeded(job.getSucceeded());
+        response.setFailed(job.getFailed());
+        if (includeResults) {
+            response.setResults(provisioningResultRepository.findByJobIdOrderByItemIndexAsc(job.getId()).stream()
+                    .map(result -> {
+                        ProvisioningResultDTO dto = new ProvisioningResultDTO();
+                        dto.setIndex(result.getItemIndex());
+                        dto.setUsername(result.getUsername());
+                        dto.setStatus(result.getStatus());
+                        dto.setUserId(result.getUserId());
+                        dto.setError(result.getError());
+                        return dto;
+                    })
+                    .toList());
+        }
+        return response;
+    }
+}
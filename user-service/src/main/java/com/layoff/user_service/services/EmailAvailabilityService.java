@@ -0,0 +1,115 @@
+package com.layoff.user_service.services;
+
+import com.layoff.user_service.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this email already registered?" without a database round trip in
+ * the common case.
+ *
+ * A Bloom filter of every registered email is built at startup by streaming
+ * {@code users.email}, and every email stored afterwards (by this instance or, via
+ * the {@code users.changed} topic, by any other) is added to it. A negative answer
+ * is final; only a possible match is confirmed against the unique email index.
+ * Until the filter is built every check goes to the database.
+ */
+@Service
+public class EmailAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailAvailabilityService.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long expectedEmails;
+    private final double falsePositiveRate;
+    private final Counter filteredChecks;
+    private final Counter confirmedTaken;
+    private final Counter falsePositives;
+
+    private volatile EmailBloomFilter filter;
+    private volatile EmailBloomFilter building;
+
+    public EmailAvailabilityService(UserRepository userRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${users.email-filter.expected-emails:1000000}") long expectedEmails,
+                                    @Value("${users.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedEmails = expectedEmails;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filteredChecks = counter(meterRegistry, "free");
+        this.confirmedTaken = counter(meterRegistry, "taken");
+        this.falsePositives = counter(meterRegistry, "false_positive");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("users.email.availability.checks")
+                .description("Email availability checks by outcome; only taken and false_positive hit the database")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildFilter() {
+        long start = System.currentTimeMillis();
+        // leave room for growth so the false-positive rate holds until the next restart
+        EmailBloomFilter next = new EmailBloomFilter(Math.max(expectedEmails, userRepository.count() * 2), falsePositiveRate);
+        building = next;
+        long[] loaded = {0};
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> emails = userRepository.streamAllEmails()) {
+                emails.forEach(email -> {
+                    next.add(email);
+                    loaded[0]++;
+                });
+            }
+        });
+        filter = next;
+        building = null;
+        logger.info("Built email filter with {} emails ({} bits, {} hashes) in {} ms",
+                loaded[0], next.bitCount(), next.hashCount(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isAvailable(String email) {
+        String normalized = EmailBloomFilter.normalize(email);
+        EmailBloomFilter current = filter;
+        if (current != null && !current.mightContain(normalized)) {
+            filteredChecks.increment();
+            return true;
+        }
+        if (userRepository.existsByEmail(normalized)) {
+            confirmedTaken.increment();
+            return false;
+        }
+        falsePositives.increment();
+        return true;
+    }
+
+    public void emailRegistered(String email) {
+        if (email == null || email.isBlank()) {
+            return;
+        }
+        // add to the filter being built as well, it may already have read past this row
+        EmailBloomFilter pending = building;
+        if (pending != null) {
+            pending.add(email);
+        }
+        EmailBloomFilter current = filter;
+        if (current != null) {
+            current.add(email);
+        }
+    }
+}
@@ -1,21 +1,49 @@
 package com.layoff.user_service.services;
 
 import com.layoff.user_service.dtos.UserRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class KeyCloakAdminService {
 
+    private static final Logger logger = LoggerFactory.getLogger(KeyCloakAdminService.class);
+
+    /**
+     * User attribute holding the registration or bulk job that created the account,
+     * so a retry can tell its own earlier creation apart from someone else's user.
+     * The realm's user profile has to accept it (declared, or unmanaged attributes enabled).
+     */
+    public static final String PROVISIONING_REF_ATTRIBUTE = "provisioningRef";
+
+    private record CachedToken(String value, Instant refreshAt, Instant expiresAt) {}
+
+    private record CachedRole(Map<String, Object> representation, Instant expiresAt) {}
+
     @Value("${keycloak.admin.username}")
     private String adminUsername;
 
@@ -31,9 +59,94 @@ public class KeyCloakAdminService {
     @Value("${keycloak.admin.client-id}")
     private String clientId;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${keycloak.admin.token-expiry-skew-seconds:30}")
+    private long tokenExpirySkewSeconds;
+
+    @Value("${keycloak.admin.role-cache-ttl-seconds:300}")
+    private long roleCacheTtlSeconds;
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService asyncExecutor;
+
+    private final Object tokenLock = new Object();
+    private volatile CachedToken cachedToken;
+    private final Map<String, CachedRole> roleCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param asyncConcurrency worker threads behind the {@code *Async} methods; matches
+     *                         the connection pool size so pipelined calls never queue
+     *                         for a connection
+     */
+    public KeyCloakAdminService(RestTemplate keycloakRestTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${keycloak.http.max-connections:20}") int asyncConcurrency) {
+        this.restTemplate = keycloakRestTemplate;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.asyncExecutor = Executors.newFixedThreadPool(asyncConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "keycloak-admin-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        asyncExecutor.shutdown();
+    }
 
+    /**
+     * Returns the cached admin token, logging in again only when it is missing or
+     * about to expire. Concurrent callers that find it stale wait for a single
+     * refresh instead of each doing their own password grant.
+     */
     public String getAdminAccessToken() {
+        CachedToken token = cachedToken;
+        if (token != null && Instant.now().isBefore(token.expiresAt())) {
+            return token.value();
+        }
+        synchronized (tokenLock) {
+            token = cachedToken;
+            if (token == null || !Instant.now().isBefore(token.expiresAt())) {
+                token = requestAdminToken();
+                cachedToken = token;
+            }
+            return token.value();
+        }
+    }
+
+    /** Renews the token in the background once it is past its refresh point. */
+    @Scheduled(fixedDelayString = "${keycloak.admin.token-refresh-check-ms:5000}")
+    public void refreshAdminTokenIfDue() {
+        CachedToken token = cachedToken;
+        if (token == null || Instant.now().isBefore(token.refreshAt())) {
+            return;
+        }
+        synchronized (tokenLock) {
+            if (cachedToken != token) {
+                return;
+            }
+            try {
+                cachedToken = requestAdminToken();
+            } catch (RuntimeException e) {
+                logger.warn("Background refresh of Keycloak admin token failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Drops the cached token, e.g. after Keycloak rejected it with 401. */
+    public void invalidateAdminToken() {
+        cachedToken = null;
+    }
+
+    private void invalidateIfUnauthorized(org.springframework.web.client.HttpClientErrorException e) {
+        if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+            invalidateAdminToken();
+        }
+    }
+
+    private CachedToken requestAdminToken() {
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add("client_id", clientId);
         params.add("username", adminUsername);
@@ -47,17 +160,24 @@ public class KeyCloakAdminService {
 
         String url = keycloakServerUrl + "/realms/" + realm + "/protocol/openid-connect/token";
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(
+            ResponseEntity<Map> response = timed("token", () -> restTemplate.postForEntity(
                     url,
                     entity,
                     Map.class
-            );
+            ));
 
             if (response.getBody() == null || !response.getBody().containsKey("access_token")) {
                 throw new RuntimeException("Failed to obtain access token from Keycloak. Response: " + response.getBody());
             }
 
-            return (String) response.getBody().get("access_token");
+            String accessToken = (String) response.getBody().get("access_token");
+            Object expiresIn = response.getBody().get("expires_in");
+            long lifetimeSeconds = expiresIn instanceof Number number ? number.longValue() : 60;
+            Instant now = Instant.now();
+            // refresh in the background at two thirds of the lifetime, stop handing it out just before expiry
+            Instant expiresAt = now.plusSeconds(Math.max(lifetimeSeconds - tokenExpirySkewSeconds, 1));
+            Instant refreshAt = now.plus(Duration.ofSeconds(lifetimeSeconds).multipliedBy(2).dividedBy(3));
+            return new CachedToken(accessToken, refreshAt.isBefore(expiresAt) ? refreshAt : expiresAt, expiresAt);
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             throw new RuntimeException("Failed to authenticate with Keycloak. Status: " + e.getStatusCode() + 
                     ", Response: " + e.getResponseBodyAsString(), e);
@@ -65,6 +185,11 @@ public class KeyCloakAdminService {
     }
 
     public String createUser(String token, UserRequest userRequest) {
+        return createUser(token, userRequest, null);
+    }
+
+    /** Creates the user, tagging it with {@code provisioningRef} when one is given. */
+    public String createUser(String token, UserRequest userRequest, String provisioningRef) {
         if (token == null || token.isEmpty()) {
             throw new RuntimeException("Invalid access token provided for user creation");
         }
@@ -86,17 +211,20 @@ public class KeyCloakAdminService {
         credential.put("temporary", false);
 
         userPayload.put("credentials", List.of(credential));
+        if (provisioningRef != null) {
+            userPayload.put("attributes", Map.of(PROVISIONING_REF_ATTRIBUTE, List.of(provisioningRef)));
+        }
 
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(userPayload, headers);
 
         String url = keycloakServerUrl + "/admin/realms/" + realm + "/users";
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(
+            ResponseEntity<String> response = timed("create_user", () -> restTemplate.postForEntity(
                     url,
                     entity,
                     String.class
-            );
+            ));
 
             if (!HttpStatus.CREATED.equals(response.getStatusCode())) {
                 throw new RuntimeException("Failed to create user in keycloak. Status: " + 
@@ -112,6 +240,7 @@ public class KeyCloakAdminService {
             String path = location.getPath();
             return path.substring(path.lastIndexOf("/") + 1);
         } catch (org.springframework.web.client.HttpClientErrorException e) {
+            invalidateIfUnauthorized(e);
             if (e.getStatusCode() == HttpStatus.FORBIDDEN) {
                 throw new RuntimeException("Access forbidden. The user '" + adminUsername + 
                         "' may not have admin privileges or the client '" + clientId + 
@@ -124,6 +253,23 @@ public class KeyCloakAdminService {
 
     private Map<String, Object> getRealmRoleRepresentation(String token,
                                                            String roleName) {
+        CachedRole cached = roleCache.get(roleName);
+        if (cached != null && Instant.now().isBefore(cached.expiresAt())) {
+            return cached.representation();
+        }
+        synchronized (roleCache) {
+            cached = roleCache.get(roleName);
+            if (cached == null || !Instant.now().isBefore(cached.expiresAt())) {
+                cached = new CachedRole(fetchRealmRoleRepresentation(token, roleName),
+                        Instant.now().plusSeconds(roleCacheTtlSeconds));
+                roleCache.put(roleName, cached);
+            }
+            return cached.representation();
+        }
+    }
+
+    private Map<String, Object> fetchRealmRoleRepresentation(String token,
+                                                             String roleName) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(token);
 
@@ -131,15 +277,16 @@ public class KeyCloakAdminService {
         String url = keycloakServerUrl + "/admin/realms/" +
                 realm + "/roles/" + roleName;
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = timed("get_role", () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     Map.class
-            );
+            ));
 
             return response.getBody();
         } catch (org.springframework.web.client.HttpClientErrorException e) {
+            invalidateIfUnauthorized(e);
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                 throw new RuntimeException("Realm role '" + roleName + "' not found in realm '" + realm + 
                         "'. Please create the role in Keycloak first.", e);
@@ -166,9 +313,9 @@ public class KeyCloakAdminService {
                 realm + "/users/" + userId + "/role-mappings/realm";
 
         try {
-            ResponseEntity<Void> response = restTemplate.postForEntity(
+            ResponseEntity<Void> response = timed("assign_role", () -> restTemplate.postForEntity(
                     url, entity, Void.class
-            );
+            ));
 
             if (!response.getStatusCode().is2xxSuccessful()) {
                 throw new RuntimeException(
@@ -178,9 +325,99 @@ public class KeyCloakAdminService {
                 );
             }
         } catch (org.springframework.web.client.HttpClientErrorException e) {
+            invalidateIfUnauthorized(e);
             throw new RuntimeException("Failed to assign realm role '" + roleName + 
                     "' to user '" + username + "'. Status: " + e.getStatusCode() + 
                     ", Response: " + e.getResponseBodyAsString(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the id of the user with this exact username if it was created by
+     * {@code provisioningRef} for the same email, i.e. by an earlier attempt of the
+     * same registration or job. Returns null for anyone else's account.
+     */
+    public String findAdoptableUserId(String token, UserRequest userRequest, String provisioningRef) {
+        Map<?, ?> user = findUserByUsername(token, userRequest.getUsername());
+        if (user == null || provisioningRef == null) {
+            return null;
+        }
+        Object email = user.get("email");
+        if (!(email instanceof String existingEmail) || !existingEmail.equalsIgnoreCase(userRequest.getEmail())) {
+            return null;
+        }
+        Object attributes = user.get("attributes");
+        Object refs = attributes instanceof Map<?, ?> map ? map.get(PROVISIONING_REF_ATTRIBUTE) : null;
+        if (!(refs instanceof List<?> values) || !values.contains(provisioningRef)) {
+            return null;
+        }
+        return (String) user.get("id");
+    }
+
+    /**
+     * Whether a user with this exact username exists. After a 409 from {@link #createUser}
+     * a false answer means Keycloak rejected the email rather than the username.
+     */
+    public boolean usernameExists(String token, String username) {
+        return findUserByUsername(token, username) != null;
+    }
+
+    private Map<?, ?> findUserByUsername(String token, String username) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        URI url = UriComponentsBuilder.fromUriString(keycloakServerUrl)
+                .path("/admin/realms/{realm}/users")
+                .queryParam("username", username)
+                .queryParam("exact", true)
+                .queryParam("briefRepresentation", false)
+                .buildAndExpand(realm)
+                .encode()
+                .toUri();
+        try {
+            ResponseEntity<List> response = timed("find_user", () -> restTemplate.exchange(
+                    url, HttpMethod.GET, entity, List.class));
+            List<?> users = response.getBody();
+            if (users == null || users.isEmpty()) {
+                return null;
+            }
+            return (Map<?, ?>) users.get(0);
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            invalidateIfUnauthorized(e);
+            throw new RuntimeException("Failed to look up user '" + username + "' in Keycloak. Status: " +
+                    e.getStatusCode() + ", Response: " + e.getResponseBodyAsString(), e);
+        }
+    }
+
+    /** Runs {@link #createUser} on the Keycloak worker pool so several creations can be in flight at once. */
+    public CompletableFuture<String> createUserAsync(String token, UserRequest userRequest) {
+        return createUserAsync(token, userRequest, null);
+    }
+
+    public CompletableFuture<String> createUserAsync(String token, UserRequest userRequest, String provisioningRef) {
+        return CompletableFuture.supplyAsync(() -> createUser(token, userRequest, provisioningRef), asyncExecutor);
+    }
+
+    /** Runs {@link #assignRealmRoleToUser} on the Keycloak worker pool. */
+    public CompletableFuture<Void> assignRealmRoleToUserAsync(String username, String roleName, String userId) {
+        return CompletableFuture.runAsync(() -> assignRealmRoleToUser(username, roleName, userId), asyncExecutor);
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("keycloak.admin.requests")
+                    .description("Latency of Keycloak admin REST calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+}
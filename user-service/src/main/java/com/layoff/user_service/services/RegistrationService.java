@@ -0,0 +1,310 @@
+package com.layoff.user_service.services;
+
+import com.layoff.user_service.dtos.RegistrationResponse;
+import com.layoff.user_service.dtos.UserRequest;
+import com.layoff.user_service.models.RegistrationStatus;
+import com.layoff.user_service.models.UserRegistration;
+import com.layoff.user_service.repositories.UserRegistrationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Asynchronous user registration.
+ *
+ * A submitted registration is validated, stored as PENDING and handed to a fixed
+ * pool of {@code users.registration.workers} threads; the caller gets the id to
+ * poll instead of waiting for Keycloak. Attempts that fail with a transient error
+ * (Keycloak 5xx, 401 or 429, I/O, database connectivity) are retried with
+ * exponential backoff and jitter up to {@code users.registration.max-attempts}.
+ * At most {@code users.registration.queue-capacity} registrations are waiting or
+ * retrying at once; beyond that new submissions are rejected. The password is only
+ * held in memory, so the instance holding a registration heartbeats it; one that has
+ * not been heartbeated for {@code users.registration.lease-ms} lost its instance and
+ * is marked FAILED by any instance, to be submitted again.
+ */
+@Service
+public class RegistrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationService.class);
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
+    private record Attempt(String registrationId, UserRequest request, int number, long submittedNanos) {}
+
+    private final UserService userService;
+    private final EmailAvailabilityService emailAvailabilityService;
+    private final UserRegistrationRepository registrationRepository;
+    private final ScheduledThreadPoolExecutor workers;
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long leaseMs;
+    private final Timer completedTimer;
+    private final Timer failedTimer;
+
+    public RegistrationService(UserService userService,
+                               EmailAvailabilityService emailAvailabilityService,
+                               UserRegistrationRepository registrationRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${users.registration.workers:4}") int workerCount,
+                               @Value("${users.registration.queue-capacity:500}") int queueCapacity,
+                               @Value("${users.registration.max-attempts:4}") int maxAttempts,
+                               @Value("${users.registration.initial-backoff-ms:500}") long initialBackoffMs,
+                               @Value("${users.registration.max-backoff-ms:10000}") long maxBackoffMs,
+                               @Value("${users.registration.lease-ms:60000}") long leaseMs) {
+        this.userService = userService;
+        this.emailAvailabilityService = emailAvailabilityService;
+        this.registrationRepository = registrationRepository;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.leaseMs = leaseMs;
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = new ScheduledThreadPoolExecutor(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "registration-worker-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.completedTimer = Timer.builder("users.registration.duration")
+                .description("Time from submission to the final outcome of an async registration")
+                .tag("outcome", "completed")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("users.registration.duration")
+                .description("Time from submission to the final outcome of an async registration")
+                .tag("outcome", "failed")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("users.registration.backlog", backlog, AtomicInteger::get)
+                .description("Registrations waiting for a worker or a retry")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${users.registration.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (!inFlight.isEmpty()) {
+            registrationRepository.heartbeat(Set.copyOf(inFlight), LocalDateTime.now());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${users.registration.heartbeat-ms:10000}",
+            fixedDelayString = "${users.registration.lease-ms:60000}")
+    public void failAbandonedRegistrations() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(leaseMs));
+        for (UserRegistration registration : registrationRepository.findByStatusInWithHeartbeatBefore(
+                EnumSet.of(RegistrationStatus.PENDING, RegistrationStatus.PROCESSING), cutoff)) {
+            if (inFlight.contains(registration.getId())) {
+                continue;
+            }
+            registration.setStatus(RegistrationStatus.FAILED);
+            registration.setError("Interrupted because its service instance stopped; please register again");
+            registrationRepository.save(registration);
+        }
+    }
+
+    /**
+     * Validates and queues a registration.
+     *
+     * @throws IllegalArgumentException if the request is incomplete or malformed
+     * @throws IllegalStateException if the email is already registered
+     * @throws RejectedExecutionException if the backlog is full
+     */
+    public RegistrationResponse submit(UserRequest request) {
+        String invalid = validate(request);
+        if (invalid != null) {
+            throw new IllegalArgumentException(invalid);
+        }
+        if (!emailAvailabilityService.isAvailable(request.getEmail())) {
+            throw new IllegalStateException("Email " + request.getEmail() + " is already registered");
+        }
+        if (backlog.incrementAndGet() > queueCapacity) {
+            backlog.decrementAndGet();
+            throw new RejectedExecutionException("Registration backlog is full");
+        }
+
+        String registrationId = UUID.randomUUID().toString();
+        inFlight.add(registrationId);
+        try {
+            UserRegistration registration = new UserRegistration();
+            registration.setId(registrationId);
+            registration.setUsername(request.getUsername());
+            registration.setEmail(request.getEmail());
+            registration.setStatus(RegistrationStatus.PENDING);
+            registration.setHeartbeatAt(LocalDateTime.now());
+            UserRegistration saved = registrationRepository.save(registration);
+
+            workers.execute(() -> process(new Attempt(saved.getId(), request, 1, System.nanoTime())));
+            return toResponse(saved);
+        } catch (RuntimeException e) {
+            backlog.decrementAndGet();
+            inFlight.remove(registrationId);
+            throw e;
+        }
+    }
+
+    public Optional<RegistrationResponse> getRegistration(String registrationId) {
+        return registrationRepository.findById(registrationId).map(this::toResponse);
+    }
+
+    private void process(Attempt attempt) {
+        try {
+            attempt(attempt);
+        } catch (RuntimeException e) {
+            // the status row could not be written; once its lease expires it is marked FAILED
+            logger.error("Registration {} could not be tracked: {}", attempt.registrationId(), e.getMessage());
+            finish(attempt, failedTimer);
+        }
+    }
+
+    private void attempt(Attempt attempt) {
+        UserRegistration registration = registrationRepository.findById(attempt.registrationId()).orElse(null);
+        if (registration == null) {
+            backlog.decrementAndGet();
+            inFlight.remove(attempt.registrationId());
+            return;
+        }
+        registration.setStatus(RegistrationStatus.PROCESSING);
+        registration.setAttempts(attempt.number());
+        registration.setHeartbeatAt(LocalDateTime.now());
+        registration = registrationRepository.save(registration);
+
+        try {
+            // only a retry may find its own user from an earlier attempt; anything else is a conflict
+            String userId = userService.registerUser(attempt.request(),
+                    "registration:" + attempt.registrationId(), attempt.number() > 1);
+            registration.setStatus(RegistrationStatus.COMPLETED);
+            registration.setUserId(userId);
+            registration.setError(null);
+            registrationRepository.save(registration);
+            finish(attempt, completedTimer);
+        } catch (RuntimeException e) {
+            registration.setError(truncate(rootMessage(e)));
+            if (isTransient(e) && attempt.number() < maxAttempts) {
+                long delay = backoff(attempt.number());
+                logger.warn("Registration {} attempt {} failed, retrying in {} ms: {}",
+                        attempt.registrationId(), attempt.number(), delay, e.getMessage());
+                registration.setStatus(RegistrationStatus.PENDING);
+                registration.setHeartbeatAt(LocalDateTime.now());
+                registrationRepository.save(registration);
+                workers.schedule(() -> process(new Attempt(attempt.registrationId(), attempt.request(),
+                        attempt.number() + 1, attempt.submittedNanos())), delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            logger.error("Registration {} failed after {} attempt(s): {}",
+                    attempt.registrationId(), attempt.number(), e.getMessage());
+            registration.setStatus(RegistrationStatus.FAILED);
+            registrationRepository.save(registration);
+            finish(attempt, failedTimer);
+        }
+    }
+
+    private void finish(Attempt attempt, Timer timer) {
+        backlog.decrementAndGet();
+        inFlight.remove(attempt.registrationId());
+        timer.record(System.nanoTime() - attempt.submittedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /** Exponential backoff with jitter over the upper half of the interval. */
+    private long backoff(int attempt) {
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpServerErrorException
+                    || cause instanceof ResourceAccessException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException) {
+                return true;
+            }
+            if (cause instanceof HttpClientErrorException http) {
+                // 401 means the cached admin token was revoked; it has been dropped already
+                return http.getStatusCode() == HttpStatus.UNAUTHORIZED
+                        || http.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+            }
+        }
+        return false;
+    }
+
+    private static String validate(UserRequest request) {
+        if (request == null) {
+            return "Missing registration payload";
+        }
+        if (isBlank(request.getUsername()) || isBlank(request.getEmail()) || isBlank(request.getPassword())) {
+            return "username, email and password are required";
+        }
+        if (!EMAIL.matcher(request.getEmail()).matches()) {
+            return "email is not a valid address";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return String.valueOf(cause.getMessage());
+    }
+
+    private static String truncate(String message) {
+        return message.length() > UserRegistration.MAX_ERROR_LENGTH
+                ? message.substring(0, UserRegistration.MAX_ERROR_LENGTH)
+                : message;
+    }
+
+    private RegistrationResponse toResponse(UserRegistration registration) {
+        RegistrationResponse response = new RegistrationResponse();
+        response.setRegistrationId(registration.getId());
+        response.setStatus(registration.getStatus());
+        response.setAttempts(registration.getAttempts());
+        response.setUserId(registration.getUserId());
+        response.setError(registration.getError());
+        response.setCreatedAt(registration.getCreatedAt());
+        response.setUpdatedAt(registration.getUpdatedAt());
+        return response;
+    }
+}
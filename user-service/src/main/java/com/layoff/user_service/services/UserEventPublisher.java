@@ -0,0 +1,42 @@
+package com.layoff.user_service.services;
+
+import com.layoff.user_service.dtos.UserChangedEvent;
+import com.layoff.user_service.dtos.UserResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publishes user changes to the {@code users.changed} topic so other services can
+ * drop or refresh their cached copies of the user.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventPublisher.class);
+
+    private static final String BINDING = "userChanged-out-0";
+
+    private final StreamBridge streamBridge;
+
+    public void userCreated(UserResponse user) {
+        publish(UserChangedEvent.CREATED, user);
+    }
+
+    public void userUpdated(UserResponse user) {
+        publish(UserChangedEvent.UPDATED, user);
+    }
+
+    private void publish(String changeType, UserResponse user) {
+        UserChangedEvent event = new UserChangedEvent(user.getId(), changeType, user, LocalDateTime.now());
+        if (!streamBridge.send(BINDING, event)) {
+            logger.error("Failed to publish {} event for user {}; cached copies may be stale until they expire",
+                    changeType, user.getId());
+        }
+    }
+}
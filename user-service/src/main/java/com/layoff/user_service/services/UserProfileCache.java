@@ -0,0 +1,69 @@
+package com.layoff.user_service.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.layoff.user_service.dtos.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of {@link UserResponse}s keyed by user id.
+ *
+ * Each entry carries the ETag of its JSON representation, computed once when the
+ * entry is stored, so conditional GETs are answered without serializing the user.
+ * Local updates overwrite the entry; updates from other instances arrive on
+ * {@code users.changed} and evict it. Hit, miss and eviction counts are exported
+ * under {@code users.profile-cache}.
+ */
+@Component
+public class UserProfileCache {
+
+    public record CachedUser(UserResponse user, String etag) {}
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedUser> users;
+
+    public UserProfileCache(ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${users.profile-cache.max-size:50000}") long maxSize,
+                            @Value("${users.profile-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users.profile-cache");
+    }
+
+    public CachedUser get(String id, Function<String, UserResponse> loader) {
+        return users.get(id, key -> toEntry(loader.apply(key)));
+    }
+
+    public CachedUser put(UserResponse user) {
+        CachedUser entry = toEntry(user);
+        users.put(user.getId(), entry);
+        return entry;
+    }
+
+    public void evict(String id) {
+        users.invalidate(id);
+    }
+
+    private CachedUser toEntry(UserResponse user) {
+        try {
+            String hash = DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(user));
+            return new CachedUser(user, "\"" + hash + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize user " + user.getId(), e);
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package com.layoff.user_service.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.layoff.user_service.dtos.AddressDTO;
 import com.layoff.user_service.dtos.UserRequest;
 import com.layoff.user_service.dtos.UserResponse;
 import com.layoff.user_service.models.Address;
 import com.layoff.user_service.models.User;
 import com.layoff.user_service.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -17,10 +36,59 @@ public class UserService {
 
     private final KeyCloakAdminService keyCloakAdminService;
     private final UserRepository userRepository;
-    
+    private final UserEventPublisher userEventPublisher;
+    private final EmailAvailabilityService emailAvailabilityService;
+    private final UserProfileCache userProfileCache;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "firstName", "lastName", "email", "createdAt");
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    @Value("${users.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${users.batch.max-size:200}")
+    private int maxBatchSize;
+
     public void addUser(UserRequest userRequest) {
+        registerUser(userRequest, null, false);
+    }
+
+    /**
+     * Creates the Keycloak user, assigns the default role and stores the local row.
+     * The Keycloak user is tagged with {@code provisioningRef}. With {@code adoptExisting}
+     * a Keycloak user or local row left behind by an earlier attempt with the same
+     * reference and email is reused, so the call can safely be retried; a username
+     * or email owned by anyone else still fails with a conflict.
+     *
+     * @return the new user's id
+     */
+    String registerUser(UserRequest userRequest, String provisioningRef, boolean adoptExisting) {
         String token = keyCloakAdminService.getAdminAccessToken();
-        String keyCloakUserId = keyCloakAdminService.createUser(token, userRequest);
+        String keyCloakUserId;
+        try {
+            keyCloakUserId = keyCloakAdminService.createUser(token, userRequest, provisioningRef);
+        } catch (RuntimeException e) {
+            if (!isConflict(e)) {
+                throw e;
+            }
+            String existingId = adoptExisting
+                    ? keyCloakAdminService.findAdoptableUserId(token, userRequest, provisioningRef)
+                    : null;
+            if (existingId == null) {
+                throw new IllegalStateException(keyCloakAdminService.usernameExists(token, userRequest.getUsername())
+                        ? "Username " + userRequest.getUsername() + " is already taken"
+                        : "Email " + userRequest.getEmail() + " is already registered", e);
+            }
+            keyCloakUserId = existingId;
+        }
+
+        keyCloakAdminService.assignRealmRoleToUser(userRequest.getUsername(), "CUSTOMER", keyCloakUserId);
+        if (adoptExisting && userRepository.existsById(keyCloakUserId)) {
+            return keyCloakUserId;
+        }
 
         User user = new User();
         user.setId(keyCloakUserId);
@@ -33,8 +101,19 @@ public class UserService {
             user.setAddress(address);
         }
 
-        keyCloakAdminService.assignRealmRoleToUser(userRequest.getUsername(), "CUSTOMER", keyCloakUserId);
         userRepository.save(user);
+        emailAvailabilityService.emailRegistered(user.getEmail());
+        userEventPublisher.userCreated(convertToUserResponse(user));
+        return keyCloakUserId;
+    }
+
+    private static boolean isConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException http && http.getStatusCode() == HttpStatus.CONFLICT) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void updateUserFromRequest(User user, UserRequest userRequest) {
@@ -55,9 +134,80 @@ public class UserService {
         return address;
     }
 
-    public List<UserResponse> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream().map(this::convertToUserResponse).toList();
+    /** Every user, with addresses loaded in the same query. */
+    public List<UserResponse> getAllUsers(String sort) {
+        return userRepository.findAllWithAddress(Pageable.unpaged(parseSort(sort))).stream()
+                .map(this::convertToUserResponse)
+                .toList();
+    }
+
+    public Page<UserResponse> getUsers(int page, int size, String sort) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page index must not be negative");
+        }
+        int boundedSize = Math.min(Math.max(size, 1), maxPageSize);
+        return userRepository.findAllWithAddress(PageRequest.of(page, boundedSize, parseSort(sort)))
+                .map(this::convertToUserResponse);
+    }
+
+    /**
+     * Resolves many users in one query. Unknown ids are left out of the result and
+     * duplicates are collapsed.
+     */
+    public List<UserResponse> getUsersByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Set<String> distinct = new LinkedHashSet<>(ids);
+        if (distinct.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " users can be requested at once");
+        }
+        return userRepository.findAllWithAddressByIdIn(distinct).stream()
+                .map(this::convertToUserResponse)
+                .toList();
+    }
+
+    /**
+     * Writes every user as one JSON document per line. Rows are streamed from a
+     * single fetch-join query and detached once written, so memory stays flat no
+     * matter how large the table is.
+     */
+    public void exportUsers(OutputStream out) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<User> users = userRepository.streamAllWithAddress()) {
+                users.forEach(user -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(convertToUserResponse(user)));
+                        out.write(NEWLINE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (user.getAddress() != null) {
+                        entityManager.detach(user.getAddress());
+                    }
+                    entityManager.detach(user);
+                });
+            }
+        });
+    }
+
+    /** Accepts "field" or "field,asc|desc"; only indexed-friendly fields are allowed. */
+    private Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by("id");
+        }
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Cannot sort users by " + field);
+        }
+        Sort.Direction direction = parts.length > 1
+                ? Sort.Direction.fromOptionalString(parts[1].trim()).orElse(Sort.Direction.ASC)
+                : Sort.Direction.ASC;
+        Sort order = Sort.by(direction, field);
+        return field.equals("id") ? order : order.and(Sort.by("id"));
     }
 
     private UserResponse convertToUserResponse(User user) {
@@ -80,9 +230,15 @@ public class UserService {
     }
 
     public UserResponse getUserById(String id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        return convertToUserResponse(user);
+        return getCachedUser(id).user();
+    }
+
+    /** The user together with the ETag of its representation, served from the profile cache. */
+    public UserProfileCache.CachedUser getCachedUser(String id) {
+        return userProfileCache.get(id, key -> userRepository.findAllWithAddressByIdIn(List.of(key)).stream()
+                .findFirst()
+                .map(this::convertToUserResponse)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + key)));
     }
 
     public UserResponse updateUser(String id, UserRequest userRequest) {
@@ -107,6 +263,10 @@ public class UserService {
         }
 
         userRepository.save(user);
-        return convertToUserResponse(user);
+        emailAvailabilityService.emailRegistered(user.getEmail());
+        UserResponse response = convertToUserResponse(user);
+        userProfileCache.put(response);
+        userEventPublisher.userUpdated(response);
+        return response;
     }
 }
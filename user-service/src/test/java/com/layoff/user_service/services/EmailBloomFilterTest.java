@@ -0,0 +1,43 @@
+package com.layoff.user_service.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void neverReportsAnAddedEmailAsAbsent() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    void ignoresCaseAndSurroundingWhitespace() {
+        EmailBloomFilter filter = new EmailBloomFilter(100, 0.01);
+        filter.add("Jane.Doe@Example.com");
+        assertTrue(filter.mightContain("  jane.doe@example.COM "));
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearTarget() {
+        EmailBloomFilter filter = new EmailBloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("member" + i + "@shop.test");
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("visitor" + i + "@other.test")) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "false-positive rate was " + rate);
+    }
+}
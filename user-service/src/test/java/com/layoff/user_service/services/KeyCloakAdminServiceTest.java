@@ -0,0 +1,170 @@
+package com.layoff.user_service.services;
+
+import com.layoff.user_service.config.KeycloakHttpClientConfig;
+import com.layoff.user_service.dtos.UserRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives KeyCloakAdminService against a local stub that answers the handful of
+ * Keycloak admin endpoints the service uses.
+ */
+class KeyCloakAdminServiceTest {
+
+    private static final int MAX_CONNECTIONS = 8;
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger roleLookups = new AtomicInteger();
+    private final AtomicInteger usersCreated = new AtomicInteger();
+    private final AtomicInteger roleMappings = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private HttpServer stub;
+    private ExecutorService stubExecutor;
+    private CloseableHttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private KeyCloakAdminService keyCloakAdminService;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubExecutor = Executors.newFixedThreadPool(16);
+        stub.setExecutor(stubExecutor);
+        stub.createContext("/", this::handle);
+        stub.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        KeycloakHttpClientConfig config = new KeycloakHttpClientConfig();
+        PoolingHttpClientConnectionManager connectionManager =
+                config.keycloakConnectionManager(MAX_CONNECTIONS, 1000, 2000, 300, meterRegistry);
+        httpClient = config.keycloakHttpClient(connectionManager, 2000, 2000, 60);
+
+        keyCloakAdminService = new KeyCloakAdminService(
+                config.keycloakRestTemplate(httpClient), meterRegistry, MAX_CONNECTIONS);
+        ReflectionTestUtils.setField(keyCloakAdminService, "keycloakServerUrl",
+                "http://127.0.0.1:" + stub.getAddress().getPort());
+        ReflectionTestUtils.setField(keyCloakAdminService, "realm", "master");
+        ReflectionTestUtils.setField(keyCloakAdminService, "clientId", "admin-cli");
+        ReflectionTestUtils.setField(keyCloakAdminService, "adminUsername", "admin");
+        ReflectionTestUtils.setField(keyCloakAdminService, "adminPassword", "admin");
+        ReflectionTestUtils.setField(keyCloakAdminService, "tokenExpirySkewSeconds", 30L);
+        ReflectionTestUtils.setField(keyCloakAdminService, "roleCacheTtlSeconds", 300L);
+    }
+
+    @AfterEach
+    void stopStub() throws IOException {
+        try {
+            keyCloakAdminService.shutdown();
+            httpClient.close();
+        } finally {
+            stub.stop(0);
+            stubExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void pipelinedRegistrationsShareTokenRoleAndPooledConnections() {
+        int registrations = 200;
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        for (int i = 0; i < registrations; i++) {
+            UserRequest request = new UserRequest();
+            request.setUsername("user" + i);
+            request.setEmail("user" + i + "@example.com");
+            request.setPassword("secret");
+            String token = keyCloakAdminService.getAdminAccessToken();
+            inFlight.add(keyCloakAdminService.createUserAsync(token, request)
+                    .thenCompose(userId -> keyCloakAdminService.assignRealmRoleToUserAsync(
+                            request.getUsername(), "CUSTOMER", userId)));
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(registrations, usersCreated.get());
+        assertEquals(registrations, roleMappings.get());
+        assertEquals(1, tokenRequests.get());
+        assertEquals(1, roleLookups.get());
+        assertTrue(clientPorts.size() <= MAX_CONNECTIONS,
+                "opened " + clientPorts.size() + " connections for " + registrations * 2 + " calls");
+        assertEquals(registrations, meterRegistry.get("keycloak.admin.requests")
+                .tag("operation", "create_user").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void onlyAUserCreatedByTheSameReferenceAndEmailIsAdoptable() {
+        String token = keyCloakAdminService.getAdminAccessToken();
+        UserRequest request = new UserRequest();
+        request.setUsername("taken");
+        request.setEmail("Owner@Example.com");
+
+        assertEquals("existing-1", keyCloakAdminService.findAdoptableUserId(token, request, "bulk:job-1"));
+        assertNull(keyCloakAdminService.findAdoptableUserId(token, request, "bulk:job-2"));
+        assertNull(keyCloakAdminService.findAdoptableUserId(token, request, null));
+
+        request.setEmail("someone-else@example.com");
+        assertNull(keyCloakAdminService.findAdoptableUserId(token, request, "bulk:job-1"));
+
+        request.setUsername("free");
+        assertNull(keyCloakAdminService.findAdoptableUserId(token, request, "bulk:job-1"));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+
+        if (path.endsWith("/protocol/openid-connect/token")) {
+            tokenRequests.incrementAndGet();
+            respondJson(exchange, 200, "{\"access_token\":\"stub-token\",\"expires_in\":300}");
+        } else if (method.equals("GET") && path.contains("/roles/")) {
+            roleLookups.incrementAndGet();
+            respondJson(exchange, 200, "{\"id\":\"role-1\",\"name\":\"CUSTOMER\"}");
+        } else if (path.endsWith("/role-mappings/realm")) {
+            roleMappings.incrementAndGet();
+            exchange.sendResponseHeaders(204, -1);
+        } else if (method.equals("GET") && path.endsWith("/users")) {
+            respondJson(exchange, 200, exchange.getRequestURI().getQuery().contains("username=taken")
+                    ? "[{\"id\":\"existing-1\",\"username\":\"taken\",\"email\":\"owner@example.com\","
+                            + "\"attributes\":{\"provisioningRef\":[\"bulk:job-1\"]}}]"
+                    : "[]");
+        } else if (method.equals("POST") && path.endsWith("/users")) {
+            usersCreated.incrementAndGet();
+            exchange.getResponseHeaders().add("Location",
+                    "http://127.0.0.1/admin/realms/master/users/" + UUID.randomUUID());
+            exchange.sendResponseHeaders(201, -1);
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+        }
+        exchange.close();
+    }
+
+    private static void respondJson(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}